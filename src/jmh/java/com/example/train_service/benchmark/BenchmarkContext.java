@@ -0,0 +1,53 @@
+package com.example.train_service.benchmark;
+
+import com.example.train_service.TrainServiceApplication;
+import com.example.train_service.event.TrainDataChangedEvent;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.SimpleApplicationEventMulticaster;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.ResolvableType;
+
+/**
+ * Boots the full application against the embedded H2 database from the test resources.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return builder().run();
+    }
+
+    /**
+     * Like {@link #start()}, but {@link TrainDataChangedEvent}s reach no listener: no timetable index
+     * rebuild, cache eviction or change log write follows a write, so only the write itself is timed.
+     */
+    static ConfigurableApplicationContext startWithoutChangeListeners() {
+        return builder()
+                .initializers(context -> context.getBeanFactory().registerSingleton(
+                        AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+                        new SimpleApplicationEventMulticaster(context.getBeanFactory()) {
+                            @Override
+                            public void multicastEvent(ApplicationEvent event, ResolvableType eventType) {
+                                if (event instanceof PayloadApplicationEvent<?> payload
+                                        && payload.getPayload() instanceof TrainDataChangedEvent) {
+                                    return;
+                                }
+                                super.multicastEvent(event, eventType);
+                            }
+                        }))
+                .run();
+    }
+
+    private static SpringApplicationBuilder builder() {
+        return new SpringApplicationBuilder(TrainServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN");
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.train_service.benchmark;
+
+import com.example.train_service.controller.TrainController;
+import com.example.train_service.model.Train;
+import com.example.train_service.service.TrainSearchCriteria;
+import com.example.train_service.service.TrainService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark per branch of {@link TrainController#searchTrains}, over a seeded 10-day window.
+ * Branches are measured at the service, below the search response cache, so they show what a
+ * cache miss costs; {@link #repeatedQuery} goes through the controller and measures a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private TrainService trainService;
+    private TrainController controller;
+    private LocalDate date;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        trainService = context.getBean(TrainService.class);
+        trainService.seedInitialDays(10);
+        controller = context.getBean(TrainController.class);
+        date = LocalDate.now().plusDays(3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Train> byTrainNumber() {
+        return trainService.searchTrains(new TrainSearchCriteria(13039, null, null, null));
+    }
+
+    @Benchmark
+    public List<Train> byTrainNumberWithFilters() {
+        return trainService.searchTrains(new TrainSearchCriteria(13039, "Mumbai", null, date));
+    }
+
+    @Benchmark
+    public List<Train> byExactRoute() {
+        return trainService.searchTrains(new TrainSearchCriteria(null, "Bangalore", "Delhi", date));
+    }
+
+    @Benchmark
+    public List<Train> byPartialFilters() {
+        return trainService.searchTrains(new TrainSearchCriteria(null, "Bangalore", null, date));
+    }
+
+    @Benchmark
+    public List<Train> unfilteredFirstPage() {
+        return trainService.getTrainsPage(null, 500);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> repeatedQuery() {
+        return controller.searchTrains(null, "Bangalore", "Delhi", date.toString(), null, null, null, "gzip");
+    }
+}
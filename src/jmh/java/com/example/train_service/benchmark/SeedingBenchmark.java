@@ -0,0 +1,55 @@
+package com.example.train_service.benchmark;
+
+import com.example.train_service.service.TrainService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold seeding cost: each invocation starts from an empty trains table.
+ * Measured: turning the route templates (loaded once at startup) into rows, the batched inserts,
+ * the per-date transactions and the shared trains version bump. Not measured: the listeners of the
+ * resulting change event (timetable index rebuild, cache eviction, change log), which are switched
+ * off here because their cost grows with the whole table rather than with what was seeded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+public class SeedingBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private TrainService trainService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startWithoutChangeListeners();
+        trainService = context.getBean(TrainService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTrains() {
+        jdbcTemplate.update("DELETE FROM trains");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void ensureTrainsForOneDate() {
+        trainService.ensureFiftyTrainsForDate(LocalDate.now());
+    }
+
+    @Benchmark
+    public void seedTenDayWindow() {
+        trainService.seedInitialDays(10);
+    }
+}
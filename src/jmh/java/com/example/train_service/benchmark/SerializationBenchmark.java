@@ -0,0 +1,58 @@
+package com.example.train_service.benchmark;
+
+import com.example.train_service.model.TimeOrderedUuid;
+import com.example.train_service.model.Train;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of train lists at the sizes the API returns: one route,
+ * one day of the network, and a full 10-day window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+    @Param({"10", "380", "3800"})
+    private int size;
+
+    private List<Train> trains;
+    private ObjectWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same defaults Spring Boot applies to its ObjectMapper (java.time support, ISO dates)
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(List.class);
+        trains = new ArrayList<>(size);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < size; i++) {
+            LocalTime departure = LocalTime.of(6, 0).plusMinutes(4L * (i % 380));
+            trains.add(Train.builder()
+                    .id(TimeOrderedUuid.next())
+                    .trainNumber(13000 + i % 380)
+                    .source("Bangalore")
+                    .destination("Visakhapatnam")
+                    .departureDate(today.plusDays(i / 380))
+                    .departureTime(departure)
+                    .arrivalTime(departure.plusMinutes(210))
+                    .totalSeats(50)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeTrains() throws JsonProcessingException {
+        return writer.writeValueAsBytes(trains);
+    }
+}
@@ -2,13 +2,24 @@ package com.example.train_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.time.Clock;
+
 @SpringBootApplication
 @EnableScheduling
+@EnableCaching
 public class TrainServiceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(TrainServiceApplication.class, args);
 	}
+
+	// Time source for lease expiry, replaceable in tests
+	@Bean
+	public Clock clock() {
+		return Clock.systemUTC();
+	}
 }
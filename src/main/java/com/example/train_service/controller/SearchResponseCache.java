@@ -0,0 +1,163 @@
+package com.example.train_service.controller;
+
+import com.example.train_service.datasource.PrimaryReads;
+import com.example.train_service.event.TrainDataChangedEvent;
+import com.example.train_service.service.TimetableIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized, gzip-compressed search responses, so a repeated query costs a map lookup
+ * instead of a search plus JSON serialization.
+ *
+ * Keys combine the normalized query with a dataset version: a counter bumped after every
+ * committed write plus the timetable index version. A write therefore makes all earlier
+ * entries unreachable, and nothing is cached against an index that has not caught up yet.
+ * Misses are loaded through the read-only path, but at the index's trains version
+ * ({@link PrimaryReads#callAtVersion}): a search the index cannot answer reads the replica only once
+ * it has caught up to that version, and the primary otherwise, so an entry never holds rows older
+ * than the version it is cached under.
+ * Each entry holds the body both uncompressed and gzipped, so neither form is recomputed per
+ * request, with a strong ETag per form: the two are different representations. CBOR responses
+ * are cached separately, as {@link TrainPayload}s.
+ */
+@Component
+public class SearchResponseCache {
+
+    private static final String CACHE_NAME = "searchResponses";
+
+    private final TimetableIndex timetableIndex;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper = new CBORMapper();
+    private final AtomicLong writes = new AtomicLong();
+    private final AsyncCache<String, Entry> cache;
+
+    public SearchResponseCache(TimetableIndex timetableIndex,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${train.search-cache.max-bytes:67108864}") long maxBytes,
+                               @Value("${train.search-cache.expire-after-access:10m}") Duration expireAfterAccess) {
+        this.timetableIndex = timetableIndex;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> entry.plain().length + entry.gzipped().length)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Cached response for the query in JSON or CBOR, serializing what the loader returns on a miss.
+     * Concurrent misses for the same key run the loader once, on the thread that missed first; the
+     * others wait for its result without holding any lock of the cache.
+     */
+    public Entry get(String query, boolean cbor, Supplier<?> loader) {
+        // Read the version before the data so newer data is never tagged with an older version
+        long trainsVersion = timetableIndex.dataVersion();
+        String key = query + '|' + (cbor ? "cbor" : "json") + '|' + datasetVersion();
+        CompletableFuture<Entry> miss = new CompletableFuture<>();
+        CompletableFuture<Entry> entry = cache.get(key, (k, executor) -> miss);
+        if (entry == miss) {
+            try {
+                miss.complete(serialize(PrimaryReads.callAtVersion(trainsVersion, loader), cbor));
+            } catch (RuntimeException e) {
+                // failed futures are dropped from the cache
+                miss.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrainDataChanged(TrainDataChangedEvent event) {
+        writes.incrementAndGet();
+        cache.synchronous().invalidateAll();
+    }
+
+    private String datasetVersion() {
+        long indexVersion = timetableIndex.isReady() ? timetableIndex.version() : -1;
+        return writes.get() + "." + indexVersion;
+    }
+
+    private Entry serialize(Object body, boolean cbor) {
+        byte[] bytes;
+        try {
+            bytes = cbor
+                    ? cborMapper.writeValueAsBytes(TrainPayload.convert(body))
+                    : objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize search response", e);
+        }
+        String hash = hash(bytes);
+        return new Entry(bytes, gzip(bytes), '"' + hash + '"', '"' + hash + "-gzip\"", countItems(body));
+    }
+
+    // Trains in a list, or in a map of lists grouped by date; anything else counts its entries
+    private static int countItems(Object body) {
+        if (body instanceof Collection<?> items) {
+            return items.size();
+        }
+        if (body instanceof Map<?, ?> map) {
+            return map.values().stream()
+                    .mapToInt(value -> value instanceof Collection<?> items ? items.size() : 1)
+                    .sum();
+        }
+        return 1;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * One cached response: the body uncompressed and gzipped, the strong ETag of each, and the
+     * number of items it holds.
+     */
+    public record Entry(byte[] plain, byte[] gzipped, String eTag, String gzipETag, int items) {
+    }
+}
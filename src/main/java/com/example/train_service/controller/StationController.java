@@ -0,0 +1,61 @@
+package com.example.train_service.controller;
+
+import com.example.train_service.service.Station;
+import com.example.train_service.service.StationDirectory;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpStatus;
+
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/stations")
+@RequiredArgsConstructor
+public class StationController {
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final StationDirectory stationDirectory;
+
+    /**
+     * All stations of the current timetable, in name order.
+     */
+    @GetMapping
+    public ResponseEntity<List<Station>> getAllStations() {
+        try {
+            return ResponseEntity.ok(stationDirectory.all());
+        } catch (IllegalStateException e) {
+            // timetable not loaded yet
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(List.of());
+        }
+    }
+
+    /**
+     * Station suggestions for partly typed, possibly misspelled input.
+     *
+     * Examples:
+     * - /api/v1/stations/autocomplete?q=ban
+     * - /api/v1/stations/autocomplete?q=delhi&limit=5
+     * - /api/v1/stations/autocomplete?q=mumbia
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Station>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        if (limit <= 0 || limit > MAX_SUGGESTIONS) {
+            return ResponseEntity.badRequest().body(List.of());
+        }
+        try {
+            return ResponseEntity.ok(stationDirectory.autocomplete(q, limit));
+        } catch (IllegalStateException e) {
+            // timetable not loaded yet
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(List.of());
+        }
+    }
+}
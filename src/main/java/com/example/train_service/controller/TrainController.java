@@ -1,10 +1,37 @@
 package com.example.train_service.controller;
 
+import com.example.train_service.metrics.TrainMetrics;
 import com.example.train_service.model.Train;
+import com.example.train_service.service.ImportReport;
+import com.example.train_service.service.Itinerary;
+import com.example.train_service.service.JourneyQuery;
+import com.example.train_service.service.SeatAvailability;
+import com.example.train_service.service.SeatHold;
+import com.example.train_service.service.SeatHoldResult;
+import com.example.train_service.service.StationDirectory;
+import com.example.train_service.service.TimetableChangeFeed;
+import com.example.train_service.service.TimetableFormat;
+import com.example.train_service.service.TrainCursor;
+import com.example.train_service.service.TrainSearchCriteria;
 import com.example.train_service.service.TrainService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.micrometer.core.instrument.Timer;
+
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.http.CacheControl;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.http.HttpStatus;
+
+import org.springframework.http.MediaType;
+
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.*;
@@ -13,22 +40,78 @@ import org.springframework.security.core.Authentication;
 
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+
+import java.io.IOException;
+
+import java.io.InputStream;
+
+import java.io.InputStreamReader;
+
+import java.io.OutputStreamWriter;
+
+import java.io.UncheckedIOException;
+
+import java.io.Writer;
+
+import java.nio.charset.Charset;
+
+import java.nio.charset.StandardCharsets;
+
 import java.time.LocalDate;
 
+import java.time.LocalTime;
+
+import java.time.temporal.ChronoUnit;
+
+import java.util.ArrayList;
+
+import java.util.Comparator;
+
 import java.util.List;
 
+import java.util.Locale;
+
 import java.util.Optional;
 
-import java.util.UUID;
+import java.util.OptionalInt;
+
+import java.util.Set;
 
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/trains")
 @RequiredArgsConstructor
 public class TrainController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final TrainService trainService;
+    private final ObjectMapper objectMapper;
+    private final TrainMetrics trainMetrics;
+    private final SearchResponseCache searchResponseCache;
+    private final StationDirectory stationDirectory;
+    private final TimetableChangeFeed timetableChangeFeed;
+
+    @Value("${train.api.page-size:500}")
+    private int defaultPageSize;
+
+    @Value("${train.api.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${train.api.max-batch-ids:500}")
+    private int maxBatchIds;
+
+    @Value("${train.api.max-range-days:31}")
+    private int maxRangeDays;
+
+    @Value("${train.journeys.max-changes:4}")
+    private int maxJourneyChanges;
 
     // Only allow ADMIN to create a train
     @PostMapping
@@ -39,65 +122,267 @@ public class TrainController {
         return ResponseEntity.ok(trainService.createTrain(train));
     }
 
-    // Get all trains (optional: for admin)
-    @GetMapping
-    public ResponseEntity<List<Train>> getAllTrains() {
-        return ResponseEntity.ok(trainService.getAllTrains());
+    /**
+     * Get all trains, one keyset page at a time.
+     * When the page is full, the X-Next-Cursor response header holds the cursor for the next page.
+     *
+     * Examples:
+     * - /api/v1/trains?limit=200
+     * - /api/v1/trains?limit=200&cursor=MjAyNS0wOC0xNToxMzAzOQ
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Train>> getAllTrains(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor
+    ) {
+        return pageOfTrains(limit, cursor);
+    }
+
+    /**
+     * Get all trains as newline-delimited JSON, read in bounded keyset pages
+     * so neither memory use nor the time a connection is held grows with the table.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTrains() {
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writerFor(Train.class);
+            trainService.forEachTrain(train -> {
+                try {
+                    out.write(writer.writeValueAsBytes(train));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Server-sent stream of committed timetable changes ("change" events, coalesced per window),
+     * for services that keep their own copy of the timetable. Resumes after sinceVersion, or after
+     * the Last-Event-ID an EventSource sends on reconnect. A "resync" event means changes were
+     * missed and the copy should be reloaded.
+     *
+     * Example:
+     * - /api/v1/trains/changes?sinceVersion=4182
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Long sinceVersion,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+        return timetableChangeFeed.subscribe(lastEventId != null ? lastEventId : sinceVersion);
+    }
+
+    /**
+     * Admin-only bulk import of a CSV (text/csv) or NDJSON (application/x-ndjson) timetable.
+     * Rows are upserted by train number and departure date; the report lists rejected rows by line.
+     *
+     * CSV header: trainNumber,source,destination,departureDate,departureTime,arrivalTime,totalSeats
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportReport> importTrains(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body,
+            Authentication authentication
+    ) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).build();
+        }
+        Optional<TimetableFormat> format = TimetableFormat.forMediaType(contentType);
+        if (format.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        return ResponseEntity.ok(trainService.importTrains(new InputStreamReader(body, charset), format.get()));
+    }
+
+    /**
+     * Admin-only export of the whole timetable as CSV (default) or NDJSON, streamed in bounded
+     * keyset pages in the same formats the import accepts.
+     *
+     * Example:
+     * - /api/v1/trains/export?format=ndjson
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTrains(
+            @RequestParam(defaultValue = "csv") String format,
+            Authentication authentication
+    ) {
+        if (!isAdmin(authentication)) {
+            return ResponseEntity.status(403).build();
+        }
+        TimetableFormat timetableFormat;
+        try {
+            timetableFormat = TimetableFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                Optional<String> header = timetableFormat.header();
+                if (header.isPresent()) {
+                    writer.write(header.get());
+                    writer.write('\n');
+                }
+                trainService.forEachTrain(train -> {
+                    try {
+                        writer.write(timetableFormat.format(train, objectMapper));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                writer.flush();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(timetableFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trains." + format.toLowerCase(Locale.ROOT) + "\"")
+                .body(body);
     }
 
     /**
      * Search trains with optional filters.
      * If trainNumber is provided, this will list all trains matching the exact train number.
-     * Other filters like source, destination, and departureDate are optional.
+     * Other filters like source, destination, and departureDate are optional; any combination
+     * is answered by the timetable index or a single indexed query.
+     * Without a usable filter the whole timetable is paged like GET /api/v1/trains (limit, cursor).
+     * Station names are first mapped to their canonical spelling, forgiving case, spacing and small typos.
+     * Filtered results are served from the pre-serialized response cache (see {@link #cachedResponse}).
      *
      * Examples:
      * - /api/v1/trains/search?trainNumber=13039
      * - /api/v1/trains/search?source=Bangalore&destination=Delhi&departureDate=2025-08-15
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Train>> searchTrains(
+    public ResponseEntity<?> searchTrains(
             @RequestParam(required = false) String trainNumberParam,
             @RequestParam(required = false) String source,
             @RequestParam(required = false) String destination,
-            @RequestParam(required = false) String departureDate
+            @RequestParam(required = false) String departureDate,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
         final LocalDate date = (departureDate != null && !departureDate.isEmpty())
                 ? LocalDate.parse(departureDate) : null;
 
-        List<Train> result;
-
+        Integer trainNumber = null;
         if (trainNumberParam != null && !trainNumberParam.isEmpty()) {
-            Integer trainNumber;
             try {
                 trainNumber = Integer.parseInt(trainNumberParam);
             } catch (NumberFormatException e) {
                 // Handle bad input gracefully, e.g., return 400 Bad Request or empty list
                 return ResponseEntity.badRequest().body(List.of());
             }
+        }
 
-            result = trainService.findByTrainNumber(trainNumber);
+        Timer.Sample sample = Timer.start();
+        TrainSearchCriteria criteria = new TrainSearchCriteria(trainNumber,
+                stationDirectory.canonicalName(source), stationDirectory.canonicalName(destination), date);
+        if (criteria.isEmpty()) {
+            // No usable filter: page through everything instead of loading the whole table
+            ResponseEntity<List<Train>> response = pageOfTrains(limit, cursor);
+            List<Train> body = response.getBody();
+            trainMetrics.recordSearch(sample, searchBranch(criteria), body == null ? 0 : body.size());
+            return response;
+        }
+        String query = String.join("|", "search", String.valueOf(criteria.trainNumber()),
+                normalize(criteria.source()), normalize(criteria.destination()), String.valueOf(criteria.departureDate()));
+        boolean cbor = prefersCbor(accept);
+        SearchResponseCache.Entry entry = searchResponseCache.get(query, cbor, () -> trainService.searchTrains(criteria));
+        trainMetrics.recordSearch(sample, searchBranch(criteria), entry.items());
+        return cachedResponse(entry, cbor, acceptEncoding);
+    }
 
-            if (source != null && !source.isEmpty()) {
-                result = result.stream()
-                        .filter(t -> t.getSource().equalsIgnoreCase(source))
-                        .collect(Collectors.toList());
-            }
-            if (destination != null && !destination.isEmpty()) {
-                result = result.stream()
-                        .filter(t -> t.getDestination().equalsIgnoreCase(destination))
-                        .collect(Collectors.toList());
-            }
-            if (date != null) {
-                result = result.stream()
-                        .filter(t -> t.getDepartureDate().equals(date))
-                        .collect(Collectors.toList());
-            }
-        } else if (source != null && destination != null && date != null) {
-            result = trainService.searchTrains(source, destination, date);
+
+    /**
+     * Flexible-date search: trains for one route on every date of a range, grouped by date.
+     * The range is either from/to, or departureDate plus/minus flexDays. With countOnly=true
+     * only the number of trains per date is returned (calendar views).
+     *
+     * Examples:
+     * - /api/v1/trains/search/range?source=Bangalore&destination=Delhi&from=2025-08-15&to=2025-08-20
+     * - /api/v1/trains/search/range?source=Bangalore&destination=Delhi&departureDate=2025-08-15&flexDays=3&countOnly=true
+     */
+    @GetMapping("/search/range")
+    public ResponseEntity<byte[]> searchTrainsInRange(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String departureDate,
+            @RequestParam(required = false) Integer flexDays,
+            @RequestParam(defaultValue = "false") boolean countOnly,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        LocalDate start;
+        LocalDate end;
+        if (from != null && to != null) {
+            start = LocalDate.parse(from);
+            end = LocalDate.parse(to);
+        } else if (departureDate != null && flexDays != null && flexDays >= 0) {
+            LocalDate center = LocalDate.parse(departureDate);
+            start = center.minusDays(flexDays);
+            end = center.plusDays(flexDays);
         } else {
-            result = trainService.getAllTrains();
+            return ResponseEntity.badRequest().build();
+        }
+        if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) >= maxRangeDays) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Timer.Sample sample = Timer.start();
+        String sourceName = stationDirectory.canonicalName(source);
+        String destinationName = stationDirectory.canonicalName(destination);
+        String query = String.join("|", countOnly ? "range-counts" : "range",
+                normalize(sourceName), normalize(destinationName), start.toString(), end.toString());
+        boolean cbor = prefersCbor(accept);
+        SearchResponseCache.Entry entry = searchResponseCache.get(query, cbor, () -> countOnly
+                ? trainService.countTrainsBetween(sourceName, destinationName, start, end)
+                : trainService.searchTrainsBetween(sourceName, destinationName, start, end));
+        trainMetrics.recordSearch(sample, countOnly ? "date_range_counts" : "date_range", entry.items());
+        return cachedResponse(entry, cbor, acceptEncoding);
+    }
+
+    /**
+     * Earliest-arrival journeys with up to maxChanges changes of train and at least
+     * minTransferMinutes between arriving and departing at a change station.
+     * Returns the fastest itinerary for each number of changes that beats all itineraries with fewer changes.
+     *
+     * Example:
+     * - /api/v1/trains/journeys?source=Surat&destination=Patna&date=2025-08-15&departAfter=08:00&maxChanges=2
+     */
+    @GetMapping("/journeys")
+    public ResponseEntity<List<Itinerary>> planJourneys(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date,
+            @RequestParam(required = false) String departAfter,
+            @RequestParam(defaultValue = "2") int maxChanges,
+            @RequestParam(defaultValue = "15") int minTransferMinutes
+    ) {
+        if (maxChanges < 0 || maxChanges > maxJourneyChanges || minTransferMinutes < 0) {
+            return ResponseEntity.badRequest().body(List.of());
+        }
+        LocalTime earliest = (departAfter != null && !departAfter.isEmpty()) ? LocalTime.parse(departAfter) : LocalTime.MIDNIGHT;
+        JourneyQuery query = new JourneyQuery(stationDirectory.canonicalName(source), stationDirectory.canonicalName(destination),
+                LocalDate.parse(date), earliest, maxChanges, minTransferMinutes);
+        try {
+            return ResponseEntity.ok(trainService.planJourneys(query));
+        } catch (IllegalStateException e) {
+            // timetable not loaded yet
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(List.of());
         }
-        return ResponseEntity.ok(result);
     }
 
 
@@ -109,6 +394,60 @@ public class TrainController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Batch variant of GET /{id} for enrichment: one request and one query for a whole page of ids.
+     * Ids that do not exist are left out of the response.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<Train>> getTrains(@RequestBody Set<UUID> ids) {
+        if (ids.size() > maxBatchIds) {
+            return ResponseEntity.badRequest().body(List.of());
+        }
+        return ResponseEntity.ok(trainService.getTrains(ids));
+    }
+
+    // === Seat inventory (any authenticated caller, e.g. the booking service) ===
+
+    @GetMapping("/{id}/seats")
+    public ResponseEntity<SeatAvailability> getAvailableSeats(@PathVariable UUID id) {
+        OptionalInt available = trainService.getAvailableSeats(id);
+        if (available.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new SeatAvailability(id, available.getAsInt()));
+    }
+
+    /**
+     * Holds seats until the hold is committed, released or expires (train.seats.hold-ttl).
+     * Responds 404 for an unknown train and 409 when fewer seats are free than requested.
+     */
+    @PostMapping("/{id}/holds")
+    public ResponseEntity<SeatHold> holdSeats(@PathVariable UUID id, @RequestParam int seats) {
+        if (seats <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        SeatHoldResult result = trainService.holdSeats(id, seats);
+        return switch (result.status()) {
+            case HELD -> ResponseEntity.status(HttpStatus.CREATED).body(result.hold());
+            case TRAIN_NOT_FOUND -> ResponseEntity.notFound().build();
+            case NOT_ENOUGH_SEATS -> ResponseEntity.status(HttpStatus.CONFLICT).build();
+        };
+    }
+
+    @PostMapping("/holds/{holdId}/commit")
+    public ResponseEntity<Void> commitHold(@PathVariable UUID holdId) {
+        return trainService.commitHold(holdId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable UUID holdId) {
+        return trainService.releaseHold(holdId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
     // Only allow ADMIN to update a train
     @PutMapping("/{id}")
     public ResponseEntity<Train> updateTrain(@PathVariable UUID id, @RequestBody Train train, Authentication authentication) {
@@ -128,6 +467,101 @@ public class TrainController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Writes a cached search response, gzipped when the client accepts gzip. Each form has its own
+     * strong ETag, which lets Spring answer a matching If-None-Match with 304 and no body. JSON and
+     * CBOR share the URL, so shared caches are told the body depends on Accept as well as Accept-Encoding.
+     */
+    private static ResponseEntity<byte[]> cachedResponse(SearchResponseCache.Entry entry, boolean cbor, String acceptEncoding) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return builder.eTag(entry.gzipETag()).header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzipped());
+        }
+        return builder.eTag(entry.eTag()).body(entry.plain());
+    }
+
+    // gzip (or *) listed with a non-zero q-value; "gzip;q=0" means the client refuses it
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = quality;
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+        double quality = gzip != null ? gzip : any != null ? any : 0;
+        return quality > 0;
+    }
+
+    // CBOR only when the client ranks it above JSON; wildcards and missing Accept headers get JSON
+    private static boolean prefersCbor(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return false;
+        }
+        List<MediaType> mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        mediaTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_CBOR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // === Query shape used to tag search metrics ===
+    private static String searchBranch(TrainSearchCriteria criteria) {
+        if (criteria.trainNumber() != null) return "train_number";
+        if (criteria.isExactRoute()) return "exact_route";
+        if (criteria.isEmpty()) return "unfiltered";
+        return "filtered";
+    }
+
+    // === Keyset page with the next cursor in a response header ===
+    private ResponseEntity<List<Train>> pageOfTrains(Integer limit, String cursor) {
+        int pageSize = (limit == null || limit <= 0) ? defaultPageSize : Math.min(limit, maxPageSize);
+        TrainCursor after;
+        try {
+            after = (cursor != null && !cursor.isEmpty()) ? TrainCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(List.of());
+        }
+
+        List<Train> page = trainService.getTrainsPage(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, TrainCursor.after(page.get(page.size() - 1)).encode());
+        }
+        return response.body(page);
+    }
+
     // === Utility method to check for admin role ===
     private boolean isAdmin(Authentication authentication) {
         if (authentication == null) return false;
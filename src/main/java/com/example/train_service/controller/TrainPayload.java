@@ -0,0 +1,73 @@
+package com.example.train_service.controller;
+
+import com.example.train_service.model.Train;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact form of a {@link Train} for binary (CBOR) responses, under one-letter field names:
+ * {@code i} id as 16 raw bytes, {@code n} train number, {@code s} source, {@code d} destination,
+ * {@code y} departure date as epoch day, {@code t} departure and {@code a} arrival as minute of day,
+ * {@code c} total seats. JSON responses keep the full {@link Train} representation.
+ */
+public record TrainPayload(byte[] i,
+                           int n,
+                           String s,
+                           String d,
+                           long y,
+                           int t,
+                           int a,
+                           Integer c) {
+
+    public static TrainPayload of(Train train) {
+        return new TrainPayload(
+                toBytes(train.getId()),
+                train.getTrainNumber(),
+                train.getSource(),
+                train.getDestination(),
+                train.getDepartureDate().toEpochDay(),
+                minuteOfDay(train.getDepartureTime()),
+                minuteOfDay(train.getArrivalTime()),
+                train.getTotalSeats());
+    }
+
+    /**
+     * Replaces trains in a response body with payloads: a single train, a collection of trains,
+     * or a map of them grouped by date (keys become epoch days). Anything else is returned as is.
+     */
+    public static Object convert(Object body) {
+        if (body instanceof Train train) {
+            return of(train);
+        }
+        if (body instanceof Collection<?> items) {
+            return items.stream().map(TrainPayload::convert).toList();
+        }
+        if (body instanceof Map<?, ?> map) {
+            Map<Object, Object> converted = new LinkedHashMap<>(map.size() * 2);
+            map.forEach((key, value) -> converted.put(
+                    key instanceof LocalDate date ? date.toEpochDay() : key, convert(value)));
+            return converted;
+        }
+        return body;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static byte[] toBytes(UUID id) {
+        if (id == null) {
+            return null;
+        }
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.train_service.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks reads that must see the latest commit even inside a read-only transaction, such as
+ * rebuilding a read model right after a write, or that must see at least a known trains version.
+ * Without a configured replica it has no effect.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> REQUESTED = new ThreadLocal<>();
+
+    private static final ThreadLocal<Long> REQUIRED_TRAINS_VERSION = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    /**
+     * Runs {@code work} with every connection it opens taken from the primary.
+     */
+    public static <T> T call(Supplier<T> work) {
+        Boolean previous = REQUESTED.get();
+        REQUESTED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                REQUESTED.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code work} on the replica only if it has applied at least {@code trainsVersion} of the
+     * shared trains version; a replica that is behind hands the connection over to the primary.
+     * Costs one single-row read per replica connection opened.
+     */
+    public static <T> T callAtVersion(long trainsVersion, Supplier<T> work) {
+        Long previous = REQUIRED_TRAINS_VERSION.get();
+        REQUIRED_TRAINS_VERSION.set(previous == null ? trainsVersion : Math.max(previous, trainsVersion));
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                REQUIRED_TRAINS_VERSION.remove();
+            } else {
+                REQUIRED_TRAINS_VERSION.set(previous);
+            }
+        }
+    }
+
+    static boolean requested() {
+        return REQUESTED.get() != null;
+    }
+
+    // 0 when the caller needs no particular version
+    static long requiredTrainsVersion() {
+        Long required = REQUIRED_TRAINS_VERSION.get();
+        return required == null ? 0 : required;
+    }
+}
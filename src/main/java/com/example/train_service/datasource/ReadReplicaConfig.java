@@ -0,0 +1,99 @@
+package com.example.train_service.datasource;
+
+import com.example.train_service.metrics.TrainMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthContributor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.actuate.jdbc.DataSourceHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Read/write split, active when {@code train.datasource.replica.url} is set. Otherwise Spring Boot's
+ * single pool is used as before.
+ *
+ * The application {@link DataSource} is a {@link LazyConnectionDataSourceProxy} over the primary
+ * pool, which only takes a physical connection at the first statement, once the transaction is
+ * known to be read-only. Read-only transactions ({@code @Transactional(readOnly = true)} in the
+ * service layer, and Spring Data's own read methods) then read from the replica pool through
+ * {@link ReplicaReadDataSource}; everything else, including work outside a transaction, uses the primary.
+ *
+ * The replica pool is configured under {@code train.datasource.replica.hikari}. It does not fail
+ * startup while the replica is down and gives up on a connection quickly, since the primary can
+ * serve the read instead. For the same reason only the primary decides the {@code db} health: the
+ * replica is reported separately as {@code readReplica}, and as UNKNOWN rather than DOWN when unreachable.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression("!'${train.datasource.replica.url:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("train.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${train.datasource.replica.url}") String url,
+            @Value("${train.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${train.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setConnectionTimeout(Duration.ofSeconds(2).toMillis());
+        return dataSource;
+    }
+
+    @Bean
+    public RecentWriteWindow recentWriteWindow(
+            @Value("${train.datasource.replica.pin-after-write:5s}") Duration pinAfterWrite) {
+        return new RecentWriteWindow(pinAfterWrite);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                 RecentWriteWindow recentWriteWindow,
+                                 TrainMetrics trainMetrics) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(
+                new ReplicaReadDataSource(replicaDataSource, primaryDataSource, recentWriteWindow, trainMetrics));
+        return dataSource;
+    }
+
+    @Bean
+    public HealthContributor dbHealthContributor(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource) {
+        return new DataSourceHealthIndicator(primaryDataSource);
+    }
+
+    @Bean
+    public HealthIndicator readReplicaHealthIndicator(@Qualifier("replicaDataSource") HikariDataSource replicaDataSource) {
+        DataSourceHealthIndicator replicaCheck = new DataSourceHealthIndicator(replicaDataSource);
+        return () -> {
+            Health health = replicaCheck.health();
+            return Status.DOWN.equals(health.getStatus()) ? Health.unknown().withDetails(health.getDetails()).build() : health;
+        };
+    }
+}
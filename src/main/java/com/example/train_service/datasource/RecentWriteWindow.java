@@ -0,0 +1,59 @@
+package com.example.train_service.datasource;
+
+import com.example.train_service.event.TrainDataChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Sends all read-only work of this instance to the primary for
+ * {@code train.datasource.replica.pin-after-write} after an admin change made on this instance
+ * (create, update, delete, import), so the admin reads back what was just written instead of a
+ * lagging replica. The window is global to the instance: while it is open every reader is pinned,
+ * not only the one that wrote.
+ *
+ * The window opens when the change is published, before its commit, and restarts after the commit.
+ * Nothing else opens it. Changes by other instances, seeding and purges reach readers through the
+ * timetable index, which is built from the primary; the train-by-id cache and search responses are
+ * filled at the index's trains version ({@link PrimaryReads#callAtVersion}), so they never take rows
+ * from a replica that has not caught up.
+ */
+public class RecentWriteWindow {
+
+    private final long windowNanos;
+    private volatile long openUntilNanos;
+    private volatile boolean opened;
+
+    public RecentWriteWindow(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public boolean isOpen() {
+        return opened && System.nanoTime() - openUntilNanos < 0;
+    }
+
+    @EventListener
+    public void onTrainDataPublished(TrainDataChangedEvent event) {
+        openFor(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrainDataCommitted(TrainDataChangedEvent event) {
+        openFor(event);
+    }
+
+    private void openFor(TrainDataChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED, DELETED, IMPORTED -> open();
+            default -> {
+                // background maintenance, see class comment
+            }
+        }
+    }
+
+    private void open() {
+        openUntilNanos = System.nanoTime() + windowNanos;
+        opened = true;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.train_service.datasource;
+
+import com.example.train_service.metrics.TrainMetrics;
+import com.example.train_service.repository.DataVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Where connections of read-only transactions come from: the replica pool, unless the read
+ * must see the latest commit ({@link PrimaryReads}, {@link RecentWriteWindow}), needs a trains
+ * version the replica has not applied yet ({@link PrimaryReads#callAtVersion}), or the replica
+ * cannot hand out a connection, in which case the primary serves it.
+ */
+@Slf4j
+public class ReplicaReadDataSource extends AbstractDataSource {
+
+    private static final String TRAINS_VERSION_SQL = "SELECT version FROM data_versions WHERE name = ?";
+
+    private final DataSource replica;
+    private final DataSource primary;
+    private final RecentWriteWindow recentWrites;
+    private final TrainMetrics trainMetrics;
+
+    private final AtomicBoolean replicaDown = new AtomicBoolean();
+
+    public ReplicaReadDataSource(DataSource replica, DataSource primary, RecentWriteWindow recentWrites,
+                                 TrainMetrics trainMetrics) {
+        this.replica = replica;
+        this.primary = primary;
+        this.recentWrites = recentWrites;
+        this.trainMetrics = trainMetrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PrimaryReads.requested() || recentWrites.isOpen()) {
+            return primary.getConnection();
+        }
+        Connection connection;
+        try {
+            connection = replica.getConnection();
+            if (replicaDown.compareAndSet(true, false)) {
+                log.info("Read replica is available again");
+            }
+        } catch (SQLException e) {
+            // logged once per outage; every fallback is counted
+            if (replicaDown.compareAndSet(false, true)) {
+                log.warn("Read replica unavailable, reading from the primary: {}", e.getMessage());
+            }
+            trainMetrics.recordReplicaFallback();
+            return primary.getConnection();
+        }
+        // a replica behind the caller's version would answer with rows older than ones it has seen
+        long required = PrimaryReads.requiredTrainsVersion();
+        if (required > 0 && !hasApplied(connection, required)) {
+            connection.close();
+            return primary.getConnection();
+        }
+        return connection;
+    }
+
+    private static boolean hasApplied(Connection connection, long trainsVersion) {
+        try (PreparedStatement statement = connection.prepareStatement(TRAINS_VERSION_SQL)) {
+            statement.setString(1, DataVersionRepository.TRAINS);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getLong(1) >= trainsVersion;
+            }
+        } catch (SQLException e) {
+            log.debug("Could not read the replica's trains version: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // Explicit credentials are the primary's; the replica pool has its own configured ones
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+}
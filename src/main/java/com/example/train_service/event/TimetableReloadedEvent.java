@@ -0,0 +1,9 @@
+package com.example.train_service.event;
+
+/**
+ * Published when the timetable index was rebuilt because another instance changed the trains table.
+ * This instance got no {@link TrainDataChangedEvent} for those writes, so listeners that keep their own
+ * copies of trains refresh them from this instead. {@code dataVersion} is the trains version now loaded.
+ */
+public record TimetableReloadedEvent(long dataVersion) {
+}
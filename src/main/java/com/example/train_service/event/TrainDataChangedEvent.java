@@ -0,0 +1,52 @@
+package com.example.train_service.event;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published by the service layer whenever rows in the trains table change.
+ * Listeners that keep derived read models (indexes, caches) refresh themselves from it.
+ *
+ * Purges remove rows by date rather than by id, so they carry the cutoff date instead of ids.
+ * Imports upsert by (train number, departure date) and carry no ids either.
+ *
+ * {@code dataVersion} is the shared trains version the write moved to, or 0 when the publisher
+ * did not read it back.
+ */
+public record TrainDataChangedEvent(ChangeType type, List<UUID> trainIds, LocalDate purgedThrough, long dataVersion) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        SEEDED,
+        PURGED,
+        IMPORTED
+    }
+
+    public TrainDataChangedEvent {
+        trainIds = List.copyOf(trainIds);
+    }
+
+    public static TrainDataChangedEvent of(ChangeType type, UUID trainId) {
+        return of(type, trainId, 0);
+    }
+
+    public static TrainDataChangedEvent of(ChangeType type, UUID trainId, long dataVersion) {
+        return new TrainDataChangedEvent(type, List.of(trainId), null, dataVersion);
+    }
+
+    public static TrainDataChangedEvent seeded(Collection<UUID> trainIds) {
+        return new TrainDataChangedEvent(ChangeType.SEEDED, List.copyOf(trainIds), null, 0);
+    }
+
+    public static TrainDataChangedEvent imported() {
+        return new TrainDataChangedEvent(ChangeType.IMPORTED, List.of(), null, 0);
+    }
+
+    public static TrainDataChangedEvent purged(LocalDate cutoffDate) {
+        return new TrainDataChangedEvent(ChangeType.PURGED, List.of(), cutoffDate, 0);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.train_service.metrics;
+
+import com.example.train_service.service.SeedReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Central place for the service's custom meters, so names and tags stay consistent.
+ * Everything is exported through /actuator/metrics and /actuator/prometheus.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrainMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Latency and result size of one search, tagged with the query shape that served it.
+     */
+    public void recordSearch(Timer.Sample sample, String branch, int resultSize) {
+        sample.stop(Timer.builder("train.search")
+                .description("Search latency per query shape")
+                .tag("branch", branch)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        DistributionSummary.builder("train.search.results")
+                .description("Trains returned per search")
+                .tag("branch", branch)
+                .baseUnit("trains")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(resultSize);
+    }
+
+    public void recordSeeding(int dates, int insertedRows, Duration duration) {
+        Timer.builder("train.seeding.duration")
+                .description("Time taken to seed a set of dates")
+                .register(meterRegistry)
+                .record(duration);
+        Counter.builder("train.seeding.rows")
+                .description("Trains inserted by seeding")
+                .baseUnit("rows")
+                .register(meterRegistry)
+                .increment(insertedRows);
+        Counter.builder("train.seeding.dates")
+                .description("Dates seeded")
+                .register(meterRegistry)
+                .increment(dates);
+    }
+
+    public void recordGapFill(SeedReport report) {
+        Timer.builder("train.seeding.gap_fill.duration")
+                .description("Time taken to find and insert missing trains for the rolling window")
+                .register(meterRegistry)
+                .record(report.duration());
+        DistributionSummary.builder("train.seeding.gap_fill.rows")
+                .description("Trains inserted per gap-filling run")
+                .baseUnit("rows")
+                .register(meterRegistry)
+                .record(report.insertedRows());
+    }
+
+    /**
+     * A read-only transaction that was meant for the read replica but got a primary connection.
+     */
+    public void recordReplicaFallback() {
+        Counter.builder("train.datasource.replica.fallbacks")
+                .description("Read-only connections served by the primary because the replica was unavailable")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordPurge(int deletedRows, int chunks, Duration duration) {
+        Timer.builder("train.purge.duration")
+                .description("Time taken to delete expired trains")
+                .register(meterRegistry)
+                .record(duration);
+        Counter.builder("train.purge.rows")
+                .description("Expired trains deleted")
+                .baseUnit("rows")
+                .register(meterRegistry)
+                .increment(deletedRows);
+        Counter.builder("train.purge.chunks")
+                .description("Delete transactions issued by purges")
+                .register(meterRegistry)
+                .increment(chunks);
+    }
+
+    /**
+     * @param outcome {@code success}, {@code failure}, or {@code lease_lost} when another instance
+     *                took the maintenance lease over mid-run
+     */
+    public void recordSchedulerRun(String outcome, Duration duration) {
+        Timer.builder("train.scheduler.run")
+                .description("Duration of a train data maintenance run")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    /**
+     * @param reason why the run did not happen: {@code overlap} when the previous run is still going,
+     *               {@code lease_held} when another instance runs this cycle
+     */
+    public void recordSchedulerSkip(String reason) {
+        Counter.builder("train.scheduler.skipped")
+                .description("Maintenance runs that were skipped")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.train_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A named counter shared by all instances of the service, bumped in the same transaction as the
+ * writes it tracks. Instances poll it to notice changes committed elsewhere without re-reading
+ * the data. Rows are written by {@link com.example.train_service.repository.DataVersionRepository}.
+ */
+@Entity
+@Table(name = "data_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataVersion {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private long version;
+}
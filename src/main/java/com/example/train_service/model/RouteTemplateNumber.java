@@ -0,0 +1,21 @@
+package com.example.train_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A train number of the route templates the seeder works from, so the daily completeness check can
+ * join against it instead of binding every number as a parameter. Rows are written by
+ * {@link com.example.train_service.repository.RouteTemplateNumberRepository}.
+ */
+@Entity
+@Table(name = "route_template_numbers")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteTemplateNumber {
+
+    @Id
+    private Integer trainNumber;
+}
@@ -0,0 +1,33 @@
+package com.example.train_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A named, time-limited lease that lets one instance of the service run a scheduled job.
+ * Every acquisition increments the fencing token, so a holder whose lease expired and was
+ * taken over can tell it no longer owns the job. Rows are written by
+ * {@link com.example.train_service.repository.SchedulerLeaseRepository}.
+ */
+@Entity
+@Table(name = "scheduler_lease")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private long fencingToken;
+
+    // Epoch milliseconds, so instances in different time zones compare the same value
+    @Column(nullable = false)
+    private long expiresAt;
+}
@@ -0,0 +1,41 @@
+package com.example.train_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * An open seat hold. Its seats are already taken off {@code trains.available_seats}; the row
+ * records them until the hold is committed (row deleted, seats stay taken) or released or
+ * expired (row deleted, seats given back). Rows are written by
+ * {@link com.example.train_service.repository.SeatReservationRepository}.
+ */
+@Entity
+@Table(name = "seat_reservations",
+        indexes = {
+                // expiry sweep
+                @Index(name = "idx_seat_reservations_expires", columnList = "expires_at"),
+                // cleanup after trains are deleted
+                @Index(name = "idx_seat_reservations_train", columnList = "train_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatReservation {
+
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID holdId;
+
+    @Column(nullable = false, columnDefinition = "BINARY(16)")
+    private UUID trainId;
+
+    @Column(nullable = false)
+    private int seats;
+
+    // Epoch milliseconds, like scheduler_lease.expires_at
+    @Column(nullable = false)
+    private long expiresAt;
+}
@@ -0,0 +1,43 @@
+package com.example.train_service.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * UUIDv7-style identifiers: 48 bits of Unix milliseconds, then a 12-bit counter, then random bits.
+ * Ids created later always compare greater as unsigned bytes, so inserts into a BINARY(16)
+ * clustered primary key append to the end of the index instead of splitting pages at random.
+ */
+public final class TimeOrderedUuid {
+
+    private static final int MAX_COUNTER = 0xFFF;
+
+    private static long lastMillis;
+    private static int counter;
+
+    private TimeOrderedUuid() {
+    }
+
+    public static UUID next() {
+        long millis;
+        int sequence;
+        synchronized (TimeOrderedUuid.class) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                // random start leaves headroom in the counter while keeping ids hard to guess
+                counter = ThreadLocalRandom.current().nextInt(MAX_COUNTER / 2);
+            } else if (++counter > MAX_COUNTER) {
+                // counter exhausted (or the clock went backwards): borrow the next millisecond
+                lastMillis++;
+                counter = 0;
+            }
+            millis = lastMillis;
+            sequence = counter;
+        }
+
+        long msb = (millis << 16) | 0x7000L | sequence;
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.train_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One entry of the change log behind {@code /api/v1/trains/changes}, shared by all instances so a
+ * subscriber can resume on any of them. Versions come from the {@code timetable-changes} counter in
+ * {@link DataVersion}, taken in the same transaction as the insert, so they commit in order. Rows are
+ * written by {@link com.example.train_service.repository.TimetableChangeRepository}.
+ */
+@Entity
+@Table(name = "timetable_changes")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableChangeEntry {
+
+    @Id
+    private long version;
+
+    // The change as sent to subscribers (JSON)
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+}
@@ -1,5 +1,6 @@
 package com.example.train_service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,7 +9,16 @@ import java.time.LocalTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "trains")
+@Table(name = "trains",
+        uniqueConstraints = @UniqueConstraint(name = "uk_trains_number_date", columnNames = {"train_number", "departure_date"}),
+        indexes = {
+                // route searches, with or without a date
+                @Index(name = "idx_trains_route_date", columnList = "source, destination, departure_date"),
+                // destination-only searches
+                @Index(name = "idx_trains_destination_date", columnList = "destination, departure_date"),
+                // date-only searches, keyset paging and purges
+                @Index(name = "idx_trains_date_number", columnList = "departure_date, train_number")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,10 +27,12 @@ import java.util.UUID;
 public class Train {
 
     @Id
+    @TimeOrderedId
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
 
-    @Column(nullable = false, unique = true)
+    // Unique per departure date (see uk_trains_number_date), not globally: every day runs the same services
+    @Column(nullable = false)
     private Integer trainNumber;
 
     @Column(nullable = false)
@@ -40,4 +52,11 @@ public class Train {
 
     @Column(nullable = false)
     private Integer totalSeats;
+
+    // Seats new holds can still take (null on rows created before this column: all seats free).
+    // Changed only by SeatInventory's conditional UPDATEs, so entity updates never overwrite it, and
+    // not serialized: copies in the timetable index and caches go stale. GET /{id}/seats reads it live.
+    @JsonIgnore
+    @Column(updatable = false)
+    private Integer availableSeats;
 }
@@ -0,0 +1,64 @@
+package com.example.train_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reads and bumps rows of {@code data_versions}. A bump is a single-row UPDATE, so inside a
+ * transaction it holds the row lock until commit: a reader that sees a version also sees every
+ * write committed under it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DataVersionRepository {
+
+    /** Bumped by every write to the trains table. */
+    public static final String TRAINS = "trains";
+
+    /** Numbers the entries of the timetable change log, in commit order. */
+    public static final String TIMETABLE_CHANGES = "timetable-changes";
+
+    private static final String INCREMENT_SQL = "UPDATE data_versions SET version = version + 1 WHERE name = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO data_versions (name, version) VALUES (?, 1)";
+
+    private static final String SELECT_SQL = "SELECT version FROM data_versions WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds one to the counter, creating it on first use.
+     */
+    public void increment(String name) {
+        if (jdbcTemplate.update(INCREMENT_SQL, name) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, name);
+        } catch (DuplicateKeyException e) {
+            // another instance created it first
+            jdbcTemplate.update(INCREMENT_SQL, name);
+        }
+    }
+
+    /**
+     * Adds one and returns the new value. Inside a transaction no other instance can take the next
+     * value before this one commits, so values are handed out in commit order.
+     */
+    public long incrementAndGet(String name) {
+        increment(name);
+        return current(name);
+    }
+
+    /**
+     * The counter's value, 0 if it was never incremented.
+     */
+    public long current(String name) {
+        List<Long> versions = jdbcTemplate.queryForList(SELECT_SQL, Long.class, name);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+}
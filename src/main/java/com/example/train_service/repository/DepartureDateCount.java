@@ -0,0 +1,13 @@
+package com.example.train_service.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection for per-date train counts.
+ */
+public interface DepartureDateCount {
+
+    LocalDate getDepartureDate();
+
+    long getTrainCount();
+}
@@ -0,0 +1,8 @@
+package com.example.train_service.repository;
+
+/**
+ * A scheduler lease as held by one owner: writes made under it carry the fencing token into the
+ * statement itself, so they only take effect while {@code scheduler_lease} still holds that token.
+ */
+public record LeaseFence(String leaseName, long fencingToken) {
+}
@@ -0,0 +1,14 @@
+package com.example.train_service.repository;
+
+import org.springframework.dao.NonTransientDataAccessException;
+
+/**
+ * Thrown by a fenced write when its lease has been taken over, so the surrounding transaction rolls back.
+ * A data access exception, so repository exception translation passes it through unchanged.
+ */
+public class LeaseLostException extends NonTransientDataAccessException {
+
+    public LeaseLostException(LeaseFence fence) {
+        super("Lease " + fence.leaseName() + " is no longer held under fencing token " + fence.fencingToken());
+    }
+}
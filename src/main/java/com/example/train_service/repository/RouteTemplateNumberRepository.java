@@ -0,0 +1,48 @@
+package com.example.train_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rows of {@code route_template_numbers}. Only the difference to the stored numbers is written,
+ * so syncing an unchanged network costs one read.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RouteTemplateNumberRepository {
+
+    private static final String SELECT_SQL = "SELECT train_number FROM route_template_numbers";
+
+    private static final String INSERT_SQL = "INSERT INTO route_template_numbers (train_number) VALUES (?)";
+
+    private static final String DELETE_SQL = "DELETE FROM route_template_numbers WHERE train_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Makes the stored numbers equal to {@code trainNumbers}. Call within a transaction.
+     */
+    public void replaceAll(Set<Integer> trainNumbers) {
+        Set<Integer> stored = new HashSet<>(jdbcTemplate.queryForList(SELECT_SQL, Integer.class));
+
+        List<Object[]> removed = stored.stream()
+                .filter(number -> !trainNumbers.contains(number))
+                .map(number -> new Object[]{number})
+                .toList();
+        List<Object[]> added = trainNumbers.stream()
+                .filter(number -> !stored.contains(number))
+                .map(number -> new Object[]{number})
+                .toList();
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, removed);
+        }
+        if (!added.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, added);
+        }
+    }
+}
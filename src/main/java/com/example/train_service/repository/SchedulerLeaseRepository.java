@@ -0,0 +1,83 @@
+package com.example.train_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Acquires and checks rows of {@code scheduler_lease} with single conditional statements,
+ * so two instances racing for the same lease cannot both win: the row lock taken by the
+ * UPDATE (or the primary key on INSERT) decides.
+ *
+ * Expiry uses the instances' clocks, so the lease TTL must be well above their clock skew.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SchedulerLeaseRepository {
+
+    private static final String TAKE_OVER_SQL =
+            "UPDATE scheduler_lease SET owner = ?, fencing_token = fencing_token + 1, expires_at = ? "
+                    + "WHERE name = ? AND (expires_at <= ? OR owner = ?)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO scheduler_lease (name, owner, fencing_token, expires_at) VALUES (?, ?, 1, ?)";
+
+    private static final String SELECT_TOKEN_SQL =
+            "SELECT fencing_token FROM scheduler_lease WHERE name = ? AND owner = ?";
+
+    private static final String RENEW_SQL =
+            "UPDATE scheduler_lease SET expires_at = ? WHERE name = ? AND owner = ? AND fencing_token = ? AND expires_at > ?";
+
+    private static final String HOLDS_SQL =
+            "SELECT COUNT(*) FROM scheduler_lease WHERE name = ? AND owner = ? AND fencing_token = ? AND expires_at > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    /**
+     * Takes the lease for {@code ttl} if it is free, expired or already ours.
+     *
+     * @return the new fencing token, or empty if another owner holds an unexpired lease
+     */
+    public OptionalLong tryAcquire(String name, String owner, Duration ttl) {
+        long now = clock.millis();
+        long expiresAt = now + ttl.toMillis();
+        int updated = jdbcTemplate.update(TAKE_OVER_SQL, owner, expiresAt, name, now, owner);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, name, owner, expiresAt);
+            } catch (DuplicateKeyException e) {
+                // the row exists and someone else holds it
+                return OptionalLong.empty();
+            }
+        }
+        List<Long> tokens = jdbcTemplate.queryForList(SELECT_TOKEN_SQL, Long.class, name, owner);
+        return tokens.isEmpty() ? OptionalLong.empty() : OptionalLong.of(tokens.get(0));
+    }
+
+    /**
+     * Extends an unexpired lease to {@code ttl} from now, for holders whose work outlasts the initial TTL.
+     *
+     * @return false if the lease expired or was taken over; it is not re-acquired
+     */
+    public boolean renew(String name, String owner, long fencingToken, Duration ttl) {
+        long now = clock.millis();
+        return jdbcTemplate.update(RENEW_SQL, now + ttl.toMillis(), name, owner, fencingToken, now) > 0;
+    }
+
+    /**
+     * Fencing check: true while {@code owner} still holds the lease under {@code fencingToken}
+     * and it has not expired.
+     */
+    public boolean holds(String name, String owner, long fencingToken) {
+        Integer count = jdbcTemplate.queryForObject(HOLDS_SQL, Integer.class,
+                name, owner, fencingToken, clock.millis());
+        return count != null && count > 0;
+    }
+}
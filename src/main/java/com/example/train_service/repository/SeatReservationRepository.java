@@ -0,0 +1,84 @@
+package com.example.train_service.repository;
+
+import com.example.train_service.model.SeatReservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.example.train_service.repository.TrainBatchRepository.fromBytes;
+import static com.example.train_service.repository.TrainBatchRepository.toBytes;
+
+/**
+ * Rows of {@code seat_reservations}. Every way out of a hold deletes its row, and only the
+ * caller whose DELETE removed it may act on the seats, so a hold is never committed and given
+ * back twice even when several instances race for it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SeatReservationRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO seat_reservations (hold_id, train_id, seats, expires_at) VALUES (?, ?, ?, ?)";
+
+    private static final String SELECT_SQL = "SELECT hold_id, train_id, seats, expires_at FROM seat_reservations";
+
+    private static final String DELETE_SQL = "DELETE FROM seat_reservations WHERE hold_id = ?";
+
+    private static final String DELETE_UNEXPIRED_SQL = DELETE_SQL + " AND expires_at > ?"
+            + " AND EXISTS (SELECT 1 FROM trains WHERE trains.id = seat_reservations.train_id)";
+
+    private static final String DELETE_ORPHANS_SQL =
+            "DELETE FROM seat_reservations WHERE NOT EXISTS (SELECT 1 FROM trains WHERE trains.id = seat_reservations.train_id)";
+
+    private static final RowMapper<SeatReservation> ROW_MAPPER = (rs, rowNum) -> new SeatReservation(
+            fromBytes(rs.getBytes("hold_id")),
+            fromBytes(rs.getBytes("train_id")),
+            rs.getInt("seats"),
+            rs.getLong("expires_at"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(SeatReservation reservation) {
+        jdbcTemplate.update(INSERT_SQL, toBytes(reservation.getHoldId()), toBytes(reservation.getTrainId()),
+                reservation.getSeats(), reservation.getExpiresAt());
+    }
+
+    public Optional<SeatReservation> findById(UUID holdId) {
+        return jdbcTemplate.query(SELECT_SQL + " WHERE hold_id = ?", ROW_MAPPER, (Object) toBytes(holdId))
+                .stream().findFirst();
+    }
+
+    /**
+     * Up to {@code limit} holds that expired at or before {@code nowMillis}, oldest first.
+     */
+    public List<SeatReservation> findExpired(long nowMillis, int limit) {
+        return jdbcTemplate.query(SELECT_SQL + " WHERE expires_at <= ? ORDER BY expires_at LIMIT ?",
+                ROW_MAPPER, nowMillis, limit);
+    }
+
+    /**
+     * True if this call removed the hold.
+     */
+    public boolean delete(UUID holdId) {
+        return jdbcTemplate.update(DELETE_SQL, (Object) toBytes(holdId)) > 0;
+    }
+
+    /**
+     * Removes the hold only while it is unexpired and its train still exists.
+     */
+    public boolean deleteUnexpired(UUID holdId, long nowMillis) {
+        return jdbcTemplate.update(DELETE_UNEXPIRED_SQL, toBytes(holdId), nowMillis) > 0;
+    }
+
+    /**
+     * Removes holds of trains that no longer exist; their seats went with the train.
+     */
+    public int deleteOrphans() {
+        return jdbcTemplate.update(DELETE_ORPHANS_SQL);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.train_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Rows of {@code timetable_changes}. Entries are appended with consecutive versions and only
+ * the oldest are ever deleted, so a gap after a subscriber's version means it was pruned.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TimetableChangeRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO timetable_changes (version, payload) VALUES (?, ?)";
+
+    private static final String SELECT_AFTER_SQL =
+            "SELECT payload FROM timetable_changes WHERE version > ? ORDER BY version LIMIT ?";
+
+    private static final String DELETE_UP_TO_SQL = "DELETE FROM timetable_changes WHERE version <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(long version, String payload) {
+        jdbcTemplate.update(INSERT_SQL, version, payload);
+    }
+
+    /**
+     * Payloads of up to {@code limit} entries after {@code version}, oldest first.
+     */
+    public List<String> findPayloadsAfter(long version, int limit) {
+        return jdbcTemplate.queryForList(SELECT_AFTER_SQL, String.class, version, limit);
+    }
+
+    public int deleteUpTo(long version) {
+        return jdbcTemplate.update(DELETE_UP_TO_SQL, version);
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.train_service.repository;
+
+import com.example.train_service.model.Train;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Plain JDBC writes for bulk paths where going through the EntityManager would
+ * cost a SELECT-before-INSERT merge per row. With rewriteBatchedStatements enabled
+ * the MySQL driver turns each batch into a single multi-row INSERT.
+ *
+ * Scheduled maintenance writes through the {@link LeaseFence} variants: each statement only
+ * touches rows while {@code scheduler_lease} still holds the caller's fencing token, and the
+ * lease row it reads stays share-locked until commit, so a takeover cannot slip in between.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TrainBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO trains (id, train_number, source, destination, departure_date, departure_time, arrival_time, "
+                    + "total_seats, available_seats) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FENCED_INSERT_SQL =
+            "INSERT INTO trains (id, train_number, source, destination, departure_date, departure_time, arrival_time, "
+                    + "total_seats, available_seats) SELECT ?, ?, ?, ?, ?, ?, ?, ?, ? "
+                    + "FROM scheduler_lease WHERE name = ? AND fencing_token = ?";
+
+    // Keyed on uk_trains_number_date; an existing row keeps its id, and its availability moves by the
+    // change in capacity, like UPDATE_CAPACITY_SQL (available_seats is assigned before total_seats changes)
+    private static final String UPDATE_BY_KEY_SQL = "UPDATE trains SET source = ?, destination = ?, "
+            + "departure_time = ?, arrival_time = ?, "
+            + "available_seats = GREATEST(0, COALESCE(available_seats, total_seats) + ? - total_seats), total_seats = ? "
+            + "WHERE train_number = ? AND departure_date = ?";
+
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO trains (id, train_number, source, destination, departure_date, departure_time, arrival_time, "
+                    + "total_seats, available_seats) SELECT ?, ?, ?, ?, ?, ?, ?, ?, ? FROM DUAL "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM trains WHERE train_number = ? AND departure_date = ?)";
+
+    private static final String SELECT_EXPIRED_IDS_SQL =
+            "SELECT id FROM trains WHERE departure_date <= :cutoffDate ORDER BY departure_date LIMIT :limit";
+
+    private static final String DELETE_BY_IDS_SQL = "DELETE FROM trains WHERE id IN (:ids)";
+
+    private static final String FENCED_DELETE_BY_IDS_SQL = DELETE_BY_IDS_SQL
+            + " AND EXISTS (SELECT 1 FROM scheduler_lease WHERE name = :leaseName AND fencing_token = :fencingToken)";
+
+    private static final String FENCE_HOLDS_SQL = "SELECT COUNT(*) FROM scheduler_lease WHERE name = ? AND fencing_token = ?";
+
+    private static final String SELECT_SEATS_SQL =
+            "SELECT COALESCE(available_seats, total_seats) AS seats FROM trains WHERE id = ?";
+
+    // Only matches while enough seats are left; the row lock serializes concurrent holds
+    private static final String TAKE_SEATS_SQL = "UPDATE trains SET available_seats = COALESCE(available_seats, total_seats) - ? "
+            + "WHERE id = ? AND COALESCE(available_seats, total_seats) >= ?";
+
+    private static final String RETURN_SEATS_SQL =
+            "UPDATE trains SET available_seats = LEAST(total_seats, COALESCE(available_seats, total_seats) + ?) WHERE id = ?";
+
+    // available_seats is assigned first, so it reads the old total_seats on MySQL as well
+    private static final String UPDATE_CAPACITY_SQL =
+            "UPDATE trains SET available_seats = GREATEST(0, COALESCE(available_seats, total_seats) + ? - total_seats), "
+                    + "total_seats = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${train.seeding.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Inserts all trains in JDBC batches of {@code train.seeding.batch-size} rows.
+     * Ids must already be assigned.
+     */
+    public int insertAll(List<Train> trains) {
+        if (trains.isEmpty()) {
+            return 0;
+        }
+        writeAll(INSERT_SQL, trains);
+        return trains.size();
+    }
+
+    /**
+     * {@link #insertAll(List)} under a scheduler lease.
+     *
+     * @throws LeaseLostException if the lease was taken over; nothing is inserted
+     */
+    public int insertAll(List<Train> trains, LeaseFence fence) {
+        if (trains.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(FENCED_INSERT_SQL, trains, batchSize, (ps, train) -> {
+            bindTrain(ps, train);
+            ps.setString(10, fence.leaseName());
+            ps.setLong(11, fence.fencingToken());
+        });
+        int inserted = 0;
+        boolean unknown = false;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unknown = true;
+                } else {
+                    inserted += count;
+                }
+            }
+        }
+        if (unknown ? !fenceHolds(fence) : inserted < trains.size()) {
+            throw new LeaseLostException(fence);
+        }
+        return trains.size();
+    }
+
+    /**
+     * Inserts new trains and updates existing ones with the same train number and departure date.
+     * Ids must already be assigned; they are only used for rows that get inserted. Seats already
+     * taken on an existing train stay taken. When the list repeats a train number and date, the
+     * last occurrence wins.
+     *
+     * Written as an UPDATE batch followed by an insert-if-absent batch rather than
+     * {@code ON DUPLICATE KEY UPDATE}, so the same statements run on MySQL and H2.
+     */
+    public int upsertAll(List<Train> trains) {
+        if (trains.isEmpty()) {
+            return 0;
+        }
+        Map<String, Train> lastByKey = new LinkedHashMap<>();
+        for (Train train : trains) {
+            lastByKey.put(train.getTrainNumber() + "/" + train.getDepartureDate(), train);
+        }
+        List<Train> unique = new ArrayList<>(lastByKey.values());
+
+        jdbcTemplate.batchUpdate(UPDATE_BY_KEY_SQL, unique, batchSize, (ps, train) -> {
+            ps.setString(1, train.getSource());
+            ps.setString(2, train.getDestination());
+            ps.setTime(3, Time.valueOf(train.getDepartureTime()));
+            ps.setTime(4, Time.valueOf(train.getArrivalTime()));
+            ps.setInt(5, train.getTotalSeats());
+            ps.setInt(6, train.getTotalSeats());
+            ps.setInt(7, train.getTrainNumber());
+            ps.setDate(8, Date.valueOf(train.getDepartureDate()));
+        });
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, unique, batchSize, (ps, train) -> {
+            bindTrain(ps, train);
+            ps.setInt(10, train.getTrainNumber());
+            ps.setDate(11, Date.valueOf(train.getDepartureDate()));
+        });
+        return trains.size();
+    }
+
+    private void writeAll(String sql, List<Train> trains) {
+        jdbcTemplate.batchUpdate(sql, trains, batchSize, TrainBatchRepository::bindTrain);
+    }
+
+    private static void bindTrain(PreparedStatement ps, Train train) throws SQLException {
+        ps.setBytes(1, toBytes(train.getId()));
+        ps.setInt(2, train.getTrainNumber());
+        ps.setString(3, train.getSource());
+        ps.setString(4, train.getDestination());
+        ps.setDate(5, Date.valueOf(train.getDepartureDate()));
+        ps.setTime(6, Time.valueOf(train.getDepartureTime()));
+        ps.setTime(7, Time.valueOf(train.getArrivalTime()));
+        ps.setInt(8, train.getTotalSeats());
+        ps.setInt(9, train.getAvailableSeats() != null ? train.getAvailableSeats() : train.getTotalSeats());
+    }
+
+    /**
+     * Up to {@code limit} ids of trains departing on or before the cutoff, read through the
+     * (departure_date, train_number) index without taking locks.
+     */
+    public List<UUID> findIdsDepartingOnOrBefore(LocalDate cutoffDate, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoffDate", Date.valueOf(cutoffDate))
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.query(SELECT_EXPIRED_IDS_SQL, params,
+                (rs, rowNum) -> fromBytes(rs.getBytes("id")));
+    }
+
+    /**
+     * Deletes by primary key only, so InnoDB locks just these rows and no gaps of the date index.
+     */
+    public int deleteAllById(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> keys = ids.stream().map(TrainBatchRepository::toBytes).toList();
+        return namedParameterJdbcTemplate.update(DELETE_BY_IDS_SQL, new MapSqlParameterSource("ids", keys));
+    }
+
+    /**
+     * {@link #deleteAllById(List)} under a scheduler lease.
+     *
+     * @throws LeaseLostException if the lease was taken over; nothing is deleted
+     */
+    public int deleteAllById(List<UUID> ids, LeaseFence fence) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids.stream().map(TrainBatchRepository::toBytes).toList())
+                .addValue("leaseName", fence.leaseName())
+                .addValue("fencingToken", fence.fencingToken());
+        int deleted = namedParameterJdbcTemplate.update(FENCED_DELETE_BY_IDS_SQL, params);
+        // nothing deleted: either fenced out, or the rows were already gone
+        if (deleted == 0 && !fenceHolds(fence)) {
+            throw new LeaseLostException(fence);
+        }
+        return deleted;
+    }
+
+    private boolean fenceHolds(LeaseFence fence) {
+        Integer count = jdbcTemplate.queryForObject(FENCE_HOLDS_SQL, Integer.class, fence.leaseName(), fence.fencingToken());
+        return count != null && count > 0;
+    }
+
+    /**
+     * Seats new holds can still take; empty if the train does not exist.
+     */
+    public Optional<Integer> findAvailableSeats(UUID id) {
+        List<Integer> seats = jdbcTemplate.query(SELECT_SEATS_SQL, (rs, rowNum) -> rs.getInt("seats"), (Object) toBytes(id));
+        return seats.stream().findFirst();
+    }
+
+    /**
+     * Takes seats off the train's availability in one conditional UPDATE.
+     *
+     * @return false if the train does not exist or has fewer seats left
+     */
+    public boolean takeSeats(UUID id, int seats) {
+        return jdbcTemplate.update(TAKE_SEATS_SQL, seats, toBytes(id), seats) > 0;
+    }
+
+    /**
+     * Gives seats back, never above the train's capacity.
+     */
+    public void returnSeats(UUID id, int seats) {
+        jdbcTemplate.update(RETURN_SEATS_SQL, seats, toBytes(id));
+    }
+
+    /**
+     * Sets a train's capacity and moves its availability by the same amount, so seats already
+     * held or booked stay taken. Availability does not go below zero when capacity shrinks.
+     */
+    public void updateCapacity(UUID id, int totalSeats) {
+        jdbcTemplate.update(UPDATE_CAPACITY_SQL, totalSeats, totalSeats, toBytes(id));
+    }
+
+    // Same byte order Hibernate uses for a UUID mapped to BINARY(16)
+    static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -1,9 +1,9 @@
 package com.example.train_service.repository;
 
 import com.example.train_service.model.Train;
-import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -13,24 +13,57 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
-public interface TrainRepository extends JpaRepository<Train, UUID> {
+public interface TrainRepository extends JpaRepository<Train, UUID>, JpaSpecificationExecutor<Train> {
 
     List<Train> findByDepartureDate(LocalDate date);
 
-    boolean existsByDepartureDate(LocalDate date);
+    @Query("SELECT t.trainNumber FROM Train t WHERE t.departureDate = :date")
+    Set<Integer> findTrainNumbersByDepartureDate(@Param("date") LocalDate date);
+
+    // Counts only trains whose number is in route_template_numbers
+    @Query("SELECT t.departureDate AS departureDate, COUNT(t) AS trainCount FROM Train t "
+            + "JOIN RouteTemplateNumber n ON n.trainNumber = t.trainNumber "
+            + "WHERE t.departureDate BETWEEN :from AND :to GROUP BY t.departureDate")
+    List<DepartureDateCount> countTemplateTrainsByDepartureDateBetween(@Param("from") LocalDate from,
+                                                                       @Param("to") LocalDate to);
 
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM Train t WHERE t.departureDate <= :cutoffDate")
-    void deleteByDepartureDateLessThanEqual(@Param("cutoffDate") LocalDate cutoffDate);
+    boolean existsByDepartureDate(LocalDate date);
 
     @Query("SELECT DISTINCT t.departureDate FROM Train t")
     Set<LocalDate> findDistinctDepartureDates();
 
     List<Train> findBySourceAndDestinationAndDepartureDate(String source, String destination, LocalDate departureDate);
 
+    // Flexible-date search: one range scan on idx_trains_route_date
+    @Query("SELECT t FROM Train t WHERE t.source = :source AND t.destination = :destination "
+            + "AND t.departureDate BETWEEN :from AND :to ORDER BY t.departureDate, t.departureTime")
+    List<Train> findRouteBetween(@Param("source") String source,
+                                 @Param("destination") String destination,
+                                 @Param("from") LocalDate from,
+                                 @Param("to") LocalDate to);
+
+    @Query("SELECT t.departureDate AS departureDate, COUNT(t) AS trainCount FROM Train t "
+            + "WHERE t.source = :source AND t.destination = :destination "
+            + "AND t.departureDate BETWEEN :from AND :to GROUP BY t.departureDate")
+    List<DepartureDateCount> countRouteBetween(@Param("source") String source,
+                                               @Param("destination") String destination,
+                                               @Param("from") LocalDate from,
+                                               @Param("to") LocalDate to);
+
     Optional<Train> findById(UUID id);
 
+    // Keyset pagination over (departureDate, trainNumber), which is unique per row
+    @Query("SELECT t FROM Train t ORDER BY t.departureDate, t.trainNumber")
+    List<Train> findFirstPage(Limit limit);
+
+    @Query("SELECT t FROM Train t "
+            + "WHERE t.departureDate > :departureDate "
+            + "OR (t.departureDate = :departureDate AND t.trainNumber > :trainNumber) "
+            + "ORDER BY t.departureDate, t.trainNumber")
+    List<Train> findPageAfter(@Param("departureDate") LocalDate departureDate,
+                              @Param("trainNumber") Integer trainNumber,
+                              Limit limit);
+
     // NEW: Find trains by exact trainNumber (case-sensitive). Use findByTrainNumberIgnoreCase if you want case-insensitive
     List<Train> findByTrainNumber(Integer trainNumber);
 
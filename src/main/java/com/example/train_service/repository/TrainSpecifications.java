@@ -0,0 +1,36 @@
+package com.example.train_service.repository;
+
+import com.example.train_service.model.Train;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Composable search filters for {@link TrainRepository}. A null argument yields a null
+ * specification, which {@link Specification#allOf} and {@link Specification#and} ignore,
+ * so any subset of filters collapses into a single WHERE clause.
+ *
+ * Strings are compared with plain equality: MySQL's case-insensitive collation matches
+ * them ignoring case while still using the composite indexes declared on {@link Train}.
+ */
+public final class TrainSpecifications {
+
+    private TrainSpecifications() {
+    }
+
+    public static Specification<Train> hasTrainNumber(Integer trainNumber) {
+        return trainNumber == null ? null : (root, query, cb) -> cb.equal(root.get("trainNumber"), trainNumber);
+    }
+
+    public static Specification<Train> hasSource(String source) {
+        return source == null ? null : (root, query, cb) -> cb.equal(root.get("source"), source);
+    }
+
+    public static Specification<Train> hasDestination(String destination) {
+        return destination == null ? null : (root, query, cb) -> cb.equal(root.get("destination"), destination);
+    }
+
+    public static Specification<Train> departsOn(LocalDate departureDate) {
+        return departureDate == null ? null : (root, query, cb) -> cb.equal(root.get("departureDate"), departureDate);
+    }
+}
@@ -1,15 +1,28 @@
 package com.example.train_service.scheduler;
 
+import com.example.train_service.metrics.TrainMetrics;
+import com.example.train_service.repository.LeaseFence;
+import com.example.train_service.repository.LeaseLostException;
+import com.example.train_service.repository.SchedulerLeaseRepository;
+import com.example.train_service.service.SeedReport;
 import com.example.train_service.service.TrainService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Component
@@ -17,44 +30,133 @@ import java.util.stream.IntStream;
 public class TrainDataScheduler {
 
     private final TrainService trainService;
+    private final TrainMetrics trainMetrics;
+    private final SchedulerLeaseRepository leaseRepository;
+
+    static final String LEASE_NAME = "train-data-maintenance";
+
+    // Guards against a new run starting while the previous one is still going
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Identifies this instance as lease owner; pid@host plus a suffix unique to this bean
+    private final String leaseOwner = ManagementFactory.getRuntimeMXBean().getName()
+            + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    // Shorter than the 2-minute cron period, so the next cycle finds the lease expired
+    @Value("${train.scheduler.lease-ttl:100s}")
+    private Duration leaseTtl;
+
+    // Extends the lease every third of its TTL while a cycle runs, off the scheduling thread that runs the cycle
+    private final ScheduledExecutorService leaseRenewal = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduler-lease-renewal");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // Fixed window size of 30 days
     private final int windowSize = 10;
 
     /**
-     * Scheduler runs every 2 hours.
+     * Scheduler runs every 2 minutes on every instance; only the one holding the
+     * database lease for this cycle does the work. The lease is renewed while the cycle runs,
+     * and every write carries its fencing token, so a holder that lost the lease cannot write
+     * alongside the next one. Other instances pick the changes up through their timetable index refresh.
      * 1. Deletes expired train data (departure dates <= yesterday)
-     * 2. Seeds train data for rolling window of 30 days from today
+     * 2. Inserts only the (date, trainNumber) pairs missing from the rolling window starting today
      */
     @Scheduled(cron = "0 */2 * * * *", zone = "Asia/Kolkata")
     public void maintainTrainDataFrequent() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Previous train data maintenance run still in progress. Skipping this run.");
+            trainMetrics.recordSchedulerSkip("overlap");
+            return;
+        }
+        long start = System.nanoTime();
+        String outcome = null; // stays null when the run is skipped
+        try {
+            OptionalLong fencingToken = leaseRepository.tryAcquire(LEASE_NAME, leaseOwner, leaseTtl);
+            if (fencingToken.isEmpty()) {
+                log.info("Another instance holds the train data maintenance lease. Skipping this run.");
+                trainMetrics.recordSchedulerSkip("lease_held");
+                return;
+            }
+            long token = fencingToken.getAsLong();
+            long renewEvery = Math.max(1, leaseTtl.toMillis() / 3);
+            ScheduledFuture<?> renewal = leaseRenewal.scheduleAtFixedRate(
+                    () -> renewLease(token), renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+            try {
+                outcome = runMaintenance(new LeaseFence(LEASE_NAME, token)) ? "success" : "lease_lost";
+            } finally {
+                renewal.cancel(false);
+            }
+        } catch (LeaseLostException e) {
+            outcome = "lease_lost";
+            log.warn("Lost the train data maintenance lease mid-write. Abandoning this run: {}", e.getMessage());
+        } catch (Exception e) {
+            outcome = "failure";
+            log.error("Error occurred during train data maintenance:", e);
+        } finally {
+            if (outcome != null) {
+                trainMetrics.recordSchedulerRun(outcome, Duration.ofNanos(System.nanoTime() - start));
+            }
+            running.set(false);
+        }
+    }
+
+    /**
+     * @return false if the lease was lost (expired and taken over) before a write phase
+     */
+    private boolean runMaintenance(LeaseFence fence) {
         LocalDate today = LocalDate.now();
         LocalDate cutoffDate = today.minusDays(1);
 
+        // 1. Clean up expired train data
+        if (!holdsLease(fence.fencingToken())) {
+            return false;
+        }
+        log.info("Starting cleanup: Deleting trains with departure date <= {}", cutoffDate);
+        trainService.deleteTrainsByDate(cutoffDate, fence);
+        log.info("Completed cleanup of expired trains.");
+
+        // 2. Fill gaps in the rolling window
+        if (!holdsLease(fence.fencingToken())) {
+            return false;
+        }
+        SeedReport report = trainService.fillMissingTrains(today, windowSize, fence);
+        trainMetrics.recordGapFill(report);
+
+        if (report.insertedRows() > 0) {
+            log.info("Filled {} missing trains across {} dates of the {}-day window in {} ms",
+                    report.insertedRows(), report.datesFilled(), windowSize, report.duration().toMillis());
+        } else {
+            log.info("Train data complete for next {} days. No seeding necessary ({} ms).",
+                    windowSize, report.duration().toMillis());
+        }
+        return true;
+    }
+
+    private void renewLease(long fencingToken) {
         try {
-            // 1. Clean up expired train data
-            log.info("Starting cleanup: Deleting trains with departure date <= {}", cutoffDate);
-            trainService.deleteTrainsByDate(cutoffDate);
-            log.info("Completed cleanup of expired trains.");
-
-            // 2. Verify train data for rolling 30-day window
-            Set<LocalDate> existingDates = trainService.getAllDistinctDepartureDates();
-
-            Set<LocalDate> expectedDates = IntStream.range(0, windowSize)
-                    .mapToObj(today::plusDays)
-                    .collect(Collectors.toSet());
-
-            boolean missingData = !existingDates.containsAll(expectedDates);
-
-            if (missingData) {
-                log.info("Train data incomplete for the {}-day window. Seeding all data...", windowSize);
-                trainService.seedInitialDays(windowSize);
-                log.info("Bulk seeding of {} days train data completed.", windowSize);
-            } else {
-                log.info("Train data complete for next {} days. No seeding necessary.", windowSize);
+            if (!leaseRepository.renew(LEASE_NAME, leaseOwner, fencingToken, leaseTtl)) {
+                // the fenced writes of this run will now be rejected
+                log.warn("Could not renew the train data maintenance lease (token {})", fencingToken);
             }
         } catch (Exception e) {
-            log.error("Error occurred during train data maintenance:", e);
+            log.error("Error renewing the train data maintenance lease:", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewal.shutdownNow();
+    }
+
+    // Early exit before each write phase; the writes themselves are fenced too
+    private boolean holdsLease(long fencingToken) {
+        if (leaseRepository.holds(LEASE_NAME, leaseOwner, fencingToken)) {
+            return true;
         }
+        log.warn("Lost the train data maintenance lease (token {}). Abandoning this run.", fencingToken);
+        return false;
     }
 }
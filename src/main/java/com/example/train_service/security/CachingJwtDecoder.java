@@ -0,0 +1,88 @@
+package com.example.train_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Remembers tokens that already passed signature and claim validation, so a client
+ * repeating the same bearer token skips the HMAC check and claim parsing.
+ *
+ * Entries are keyed by a SHA-256 digest of the token (raw tokens are never held),
+ * bounded in number, and expire at the token's {@code exp} or after {@code maxTtl},
+ * whichever comes first. Rejected tokens are never cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private static final String CACHE_NAME = "jwtDecoder";
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> cache;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration maxTtl, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry(maxTtl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("security.jwt.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of bearer tokens served from the verified-token cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        return cache.get(digest(token), key -> delegate.decode(token));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record UntilTokenExpiry(Duration maxTtl) implements Expiry<String, Jwt> {
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt == null) {
+                return maxTtl.toNanos();
+            }
+            Duration remaining = Duration.between(Instant.now(), expiresAt);
+            if (remaining.isNegative()) {
+                return 0;
+            }
+            return Math.min(remaining.toNanos(), maxTtl.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
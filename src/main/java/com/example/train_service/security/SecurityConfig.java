@@ -1,5 +1,6 @@
 package com.example.train_service.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,6 +9,7 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
 import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
 
 @Configuration
 public class SecurityConfig {
@@ -21,7 +23,7 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/actuator/**","/ping").permitAll()
-                        .requestMatchers("/api/v1/trains/search","/api/v1/trains").permitAll()
+                        .requestMatchers("/api/v1/trains/search/**","/api/v1/trains","/api/v1/trains/journeys","/api/v1/stations/**").permitAll()
                         // All others require JWT (any role)
                         .anyRequest().authenticated()
                 )
@@ -29,9 +31,17 @@ public class SecurityConfig {
         return http.build();
     }
 
+    @Value("${custom.jwt.cache.maximum-size:10000}")
+    private long jwtCacheMaximumSize;
+
+    @Value("${custom.jwt.cache.max-ttl:15m}")
+    private Duration jwtCacheMaxTtl;
+
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
         SecretKeySpec secretKey = new SecretKeySpec(jwtSecret.getBytes(), "HmacSHA256");
-        return NimbusJwtDecoder.withSecretKey(secretKey).build();
+        JwtDecoder nimbusDecoder = NimbusJwtDecoder.withSecretKey(secretKey).build();
+        // Repeat tokens skip signature verification until they expire
+        return new CachingJwtDecoder(nimbusDecoder, jwtCacheMaximumSize, jwtCacheMaxTtl, meterRegistry);
     }
 }
@@ -0,0 +1,14 @@
+package com.example.train_service.service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of a bulk timetable import: rows read, rows inserted or updated, rows rejected,
+ * and the first rejected rows with their line numbers.
+ */
+public record ImportReport(int rowsRead, int rowsUpserted, int rowsRejected, List<RowError> errors, Duration duration) {
+
+    public record RowError(long line, String message) {
+    }
+}
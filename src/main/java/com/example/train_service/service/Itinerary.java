@@ -0,0 +1,16 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One way to make a journey: the trains to take, in order.
+ */
+public record Itinerary(int changes,
+                        LocalDateTime departure,
+                        LocalDateTime arrival,
+                        long durationMinutes,
+                        List<Train> legs) {
+}
@@ -0,0 +1,204 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Earliest-arrival journey search with changes, answered entirely from the {@link TimetableIndex}.
+ *
+ * For each travel date the trains of that day and the next are compiled once into a
+ * time-expanded connection array sorted by departure (times in minutes from midnight of
+ * the travel date). A query is a round-based Connection Scan: round k finds the earliest
+ * arrival at every station using at most k trains, boarding only where round k-1 arrived
+ * at least the minimum transfer time earlier. Only the most recently used travel dates stay
+ * compiled, since the date comes from the request, and all of them are dropped whenever the
+ * index is rebuilt.
+ */
+@Component
+@RequiredArgsConstructor
+public class JourneyPlanner {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final int MAX_COMPILED_DAYS = 64;
+
+    private final TimetableIndex timetableIndex;
+
+    private volatile CompiledDays compiledDays;
+
+    public boolean isReady() {
+        return timetableIndex.isReady();
+    }
+
+    /**
+     * Returns at most one itinerary per number of changes: the fastest one with that many changes,
+     * and only if it arrives earlier than every itinerary with fewer changes. Ordered by changes.
+     */
+    public List<Itinerary> plan(JourneyQuery query) {
+        CompiledDay day = compiledDay(query.date());
+        Integer origin = day.stationIds().get(normalize(query.source()));
+        Integer target = day.stationIds().get(normalize(query.destination()));
+        if (origin == null || target == null || origin.equals(target)) {
+            return List.of();
+        }
+
+        int start = query.departAfter().toSecondOfDay() / 60;
+        int maxTrains = query.maxChanges() + 1;
+        int stations = day.stationCount();
+
+        // best[k][s]: earliest arrival at s using at most k trains; via[k][s]: connection that set it in round k
+        int[][] best = new int[maxTrains + 1][];
+        int[][] via = new int[maxTrains + 1][];
+        best[0] = new int[stations];
+        Arrays.fill(best[0], UNREACHED);
+        best[0][origin] = start;
+
+        int rounds = 0;
+        for (int k = 1; k <= maxTrains; k++) {
+            best[k] = best[k - 1].clone();
+            via[k] = new int[stations];
+            Arrays.fill(via[k], -1);
+            boolean improved = false;
+
+            for (int c = 0; c < day.departures().length; c++) {
+                int from = day.from()[c];
+                int ready;
+                if (from == origin) {
+                    ready = start;
+                } else if (best[k - 1][from] == UNREACHED) {
+                    continue;
+                } else {
+                    ready = best[k - 1][from] + query.minTransferMinutes();
+                }
+                int to = day.to()[c];
+                if (ready <= day.departures()[c] && day.arrivals()[c] < best[k][to]) {
+                    best[k][to] = day.arrivals()[c];
+                    via[k][to] = c;
+                    improved = true;
+                }
+            }
+            rounds = k;
+            if (!improved) {
+                break;
+            }
+        }
+
+        List<Itinerary> itineraries = new ArrayList<>();
+        int bestSoFar = UNREACHED;
+        for (int k = 1; k <= rounds; k++) {
+            if (best[k][target] < bestSoFar) {
+                bestSoFar = best[k][target];
+                itineraries.add(toItinerary(day, query.date(), via, origin, target, k, bestSoFar));
+            }
+        }
+        return itineraries;
+    }
+
+    private Itinerary toItinerary(CompiledDay day, LocalDate date, int[][] via,
+                                  int origin, int target, int round, int arrival) {
+        LinkedList<Integer> connections = new LinkedList<>();
+        int station = target;
+        for (int k = round; station != origin && k > 0; k--) {
+            int c = via[k][station];
+            if (c >= 0) {
+                connections.addFirst(c);
+                station = day.from()[c];
+            }
+        }
+
+        List<Train> legs = connections.stream().map(c -> day.trains()[c]).toList();
+        int departure = day.departures()[connections.getFirst()];
+        LocalDateTime midnight = date.atStartOfDay();
+        return new Itinerary(legs.size() - 1,
+                midnight.plusMinutes(departure),
+                midnight.plusMinutes(arrival),
+                arrival - departure,
+                legs);
+    }
+
+    private CompiledDay compiledDay(LocalDate date) {
+        long version = timetableIndex.version();
+        CompiledDays current = compiledDays;
+        if (current == null || current.version != version) {
+            current = new CompiledDays(version);
+            compiledDays = current;
+        }
+        return current.days.get(date, this::compile);
+    }
+
+    private CompiledDay compile(LocalDate date) {
+        record Connection(Train train, int departure, int arrival) {
+        }
+
+        List<Connection> connections = new ArrayList<>();
+        for (int dayOffset = 0; dayOffset <= 1; dayOffset++) {
+            int base = dayOffset * MINUTES_PER_DAY;
+            for (Train train : timetableIndex.findByDepartureDate(date.plusDays(dayOffset))) {
+                int departure = minuteOfDay(train.getDepartureTime());
+                int arrival = minuteOfDay(train.getArrivalTime());
+                if (arrival < departure) {
+                    // arrives after midnight
+                    arrival += MINUTES_PER_DAY;
+                }
+                connections.add(new Connection(train, base + departure, base + arrival));
+            }
+        }
+        connections.sort(Comparator.comparingInt(Connection::departure));
+
+        int size = connections.size();
+        Map<String, Integer> stationIds = new HashMap<>();
+        List<String> stationNames = new ArrayList<>();
+        int[] from = new int[size];
+        int[] to = new int[size];
+        int[] departures = new int[size];
+        int[] arrivals = new int[size];
+        Train[] trains = new Train[size];
+        for (int i = 0; i < size; i++) {
+            Connection connection = connections.get(i);
+            from[i] = stationId(stationIds, stationNames, connection.train().getSource());
+            to[i] = stationId(stationIds, stationNames, connection.train().getDestination());
+            departures[i] = connection.departure();
+            arrivals[i] = connection.arrival();
+            trains[i] = connection.train();
+        }
+        return new CompiledDay(Map.copyOf(stationIds), stationNames.size(), from, to, departures, arrivals, trains);
+    }
+
+    private static int stationId(Map<String, Integer> stationIds, List<String> stationNames, String name) {
+        return stationIds.computeIfAbsent(normalize(name), key -> {
+            stationNames.add(name);
+            return stationNames.size() - 1;
+        });
+    }
+
+    private static String normalize(String station) {
+        return station.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private record CompiledDays(long version, Cache<LocalDate, CompiledDay> days) {
+        CompiledDays(long version) {
+            this(version, Caffeine.newBuilder().maximumSize(MAX_COMPILED_DAYS).build());
+        }
+    }
+
+    private record CompiledDay(Map<String, Integer> stationIds,
+                               int stationCount,
+                               int[] from,
+                               int[] to,
+                               int[] departures,
+                               int[] arrivals,
+                               Train[] trains) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.train_service.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A connection search: leave {@code source} no earlier than {@code departAfter} on {@code date}
+ * and reach {@code destination} with at most {@code maxChanges} changes of train.
+ */
+public record JourneyQuery(String source,
+                           String destination,
+                           LocalDate date,
+                           LocalTime departAfter,
+                           int maxChanges,
+                           int minTransferMinutes) {
+}
@@ -0,0 +1,109 @@
+package com.example.train_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Loads the network the seeder generates every day from, once at startup.
+ *
+ * With {@code train.templates.location} set (any Spring resource, e.g. {@code file:/etc/trains/network.csv}),
+ * templates are read from that file: a header line {@code trainNumber,source,destination,departureTime,durationMinutes,totalSeats},
+ * then one service per line; blank lines and lines starting with {@code #} are skipped. A malformed file
+ * fails startup. Without it, the built-in 20-city network is used.
+ */
+@Slf4j
+@Component
+public class RouteTemplateLoader {
+
+    static final String HEADER = "trainNumber,source,destination,departureTime,durationMinutes,totalSeats";
+
+    private static final List<String> BUILT_IN_CITIES = List.of(
+            "Mumbai", "Delhi", "Bangalore", "Chennai", "Kolkata",
+            "Hyderabad", "Ahmedabad", "Pune", "Jaipur", "Lucknow",
+            "Nagpur", "Surat", "Kanpur", "Indore", "Thane",
+            "Bhopal", "Visakhapatnam", "Patna", "Vadodara", "Ghaziabad"
+    );
+
+    private final RouteTemplates templates;
+
+    public RouteTemplateLoader(ResourceLoader resourceLoader,
+                               @Value("${train.templates.location:}") String location) {
+        this.templates = location.isBlank() ? builtIn() : load(resourceLoader.getResource(location));
+        log.info("Loaded {} route templates over {} stations from {}", templates.size(), templates.stationCount(),
+                location.isBlank() ? "the built-in network" : location);
+    }
+
+    public RouteTemplates templates() {
+        return templates;
+    }
+
+    static RouteTemplates load(Resource resource) {
+        RouteTemplates.Builder builder = RouteTemplates.builder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null || !HEADER.equalsIgnoreCase(header.trim())) {
+                throw new IllegalStateException(resource + ": expected header " + HEADER);
+            }
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                try {
+                    if (fields.length != 6) {
+                        throw new IllegalArgumentException("expected 6 fields but found " + fields.length);
+                    }
+                    builder.add(Integer.parseInt(fields[0].trim()), fields[1].trim(), fields[2].trim(),
+                            LocalTime.parse(fields[3].trim()), Integer.parseInt(fields[4].trim()),
+                            Integer.parseInt(fields[5].trim()));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    throw new IllegalStateException(resource + " line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read route templates from " + resource, e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * All 380 back-and-forth routes between 20 cities, numbered from 13000, 3h30 each, 50 seats.
+     * Departures are 4 minutes apart from 06:00 and start over at 06:00 instead of running past
+     * midnight, so the 271st and later trains do not depart in the small hours.
+     */
+    static RouteTemplates builtIn() {
+        int firstDeparture = 6 * 60;
+        int serviceWindow = 24 * 60 - firstDeparture;
+        int spacing = 4;
+        int trainNumber = 13000;
+
+        RouteTemplates.Builder builder = RouteTemplates.builder();
+        int index = 0;
+        for (String source : BUILT_IN_CITIES) {
+            for (String destination : BUILT_IN_CITIES) {
+                if (!source.equals(destination)) {
+                    int departure = firstDeparture + (index * spacing) % serviceWindow;
+                    builder.add(trainNumber + index, source, destination,
+                            LocalTime.of(departure / 60, departure % 60), 210, 50);
+                    index++;
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * The daily service pattern of the network, compiled once into parallel primitive arrays:
+ * entry {@code i} is one train that runs every day. Station names are interned, so a network
+ * of tens of thousands of services costs a few int arrays plus one string per station.
+ *
+ * Departure times are minutes of the day; arrival is departure plus duration and may fall on
+ * the next day. Immutable and safe to share between threads.
+ */
+public final class RouteTemplates {
+
+    private final String[] stations;
+    private final int[] trainNumbers;
+    private final int[] sources;
+    private final int[] destinations;
+    private final int[] departureMinutes;
+    private final int[] durationMinutes;
+    private final int[] totalSeats;
+    private final Set<Integer> trainNumberSet;
+
+    private RouteTemplates(String[] stations, int[] trainNumbers, int[] sources, int[] destinations,
+                           int[] departureMinutes, int[] durationMinutes, int[] totalSeats) {
+        this.stations = stations;
+        this.trainNumbers = trainNumbers;
+        this.sources = sources;
+        this.destinations = destinations;
+        this.departureMinutes = departureMinutes;
+        this.durationMinutes = durationMinutes;
+        this.totalSeats = totalSeats;
+        Set<Integer> numbers = new HashSet<>(trainNumbers.length * 2);
+        for (int number : trainNumbers) {
+            numbers.add(number);
+        }
+        this.trainNumberSet = Collections.unmodifiableSet(numbers);
+    }
+
+    public int size() {
+        return trainNumbers.length;
+    }
+
+    public int stationCount() {
+        return stations.length;
+    }
+
+    public int trainNumber(int index) {
+        return trainNumbers[index];
+    }
+
+    public Set<Integer> trainNumbers() {
+        return trainNumberSet;
+    }
+
+    /**
+     * Template {@code index} as a train departing on {@code date}, without an id.
+     */
+    public Train toTrain(int index, LocalDate date) {
+        LocalTime departure = LocalTime.of(departureMinutes[index] / 60, departureMinutes[index] % 60);
+        return Train.builder()
+                .trainNumber(trainNumbers[index])
+                .source(stations[sources[index]])
+                .destination(stations[destinations[index]])
+                .departureDate(date)
+                .departureTime(departure)
+                .arrivalTime(departure.plusMinutes(durationMinutes[index]))
+                .totalSeats(totalSeats[index])
+                .availableSeats(totalSeats[index])
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Collects templates into growable arrays; {@link #build()} trims them.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> stationIds = new HashMap<>();
+        private final List<String> stations = new ArrayList<>();
+        private final Set<Integer> seenNumbers = new HashSet<>();
+        private int[] trainNumbers = new int[256];
+        private int[] sources = new int[256];
+        private int[] destinations = new int[256];
+        private int[] departureMinutes = new int[256];
+        private int[] durationMinutes = new int[256];
+        private int[] totalSeats = new int[256];
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * @throws IllegalArgumentException if the train number repeats or a field is out of range
+         */
+        public Builder add(int trainNumber, String source, String destination, LocalTime departureTime,
+                           int durationMinutes, int totalSeats) {
+            if (trainNumber <= 0 || !seenNumbers.add(trainNumber)) {
+                throw new IllegalArgumentException("train number " + trainNumber + " is not positive or repeats");
+            }
+            if (source.isBlank() || destination.isBlank() || source.equalsIgnoreCase(destination)) {
+                throw new IllegalArgumentException("train " + trainNumber + " needs two different stations");
+            }
+            if (durationMinutes <= 0 || totalSeats <= 0) {
+                throw new IllegalArgumentException("train " + trainNumber + " needs a positive duration and seat count");
+            }
+            if (size == trainNumbers.length) {
+                grow();
+            }
+            this.trainNumbers[size] = trainNumber;
+            this.sources[size] = stationId(source);
+            this.destinations[size] = stationId(destination);
+            this.departureMinutes[size] = departureTime.getHour() * 60 + departureTime.getMinute();
+            this.durationMinutes[size] = durationMinutes;
+            this.totalSeats[size] = totalSeats;
+            size++;
+            return this;
+        }
+
+        public RouteTemplates build() {
+            return new RouteTemplates(stations.toArray(String[]::new),
+                    Arrays.copyOf(trainNumbers, size), Arrays.copyOf(sources, size), Arrays.copyOf(destinations, size),
+                    Arrays.copyOf(departureMinutes, size), Arrays.copyOf(durationMinutes, size),
+                    Arrays.copyOf(totalSeats, size));
+        }
+
+        private int stationId(String name) {
+            String trimmed = name.trim();
+            return stationIds.computeIfAbsent(trimmed, key -> {
+                stations.add(key);
+                return stations.size() - 1;
+            });
+        }
+
+        private void grow() {
+            int capacity = trainNumbers.length * 2;
+            trainNumbers = Arrays.copyOf(trainNumbers, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            departureMinutes = Arrays.copyOf(departureMinutes, capacity);
+            durationMinutes = Arrays.copyOf(durationMinutes, capacity);
+            totalSeats = Arrays.copyOf(totalSeats, capacity);
+        }
+    }
+}
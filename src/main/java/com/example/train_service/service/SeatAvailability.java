@@ -0,0 +1,9 @@
+package com.example.train_service.service;
+
+import java.util.UUID;
+
+/**
+ * Seats on a train that can still be held right now.
+ */
+public record SeatAvailability(UUID trainId, int availableSeats) {
+}
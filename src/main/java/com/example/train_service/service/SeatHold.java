@@ -0,0 +1,14 @@
+package com.example.train_service.service;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Seats set aside on a train until the hold is committed, released or expires.
+ */
+public record SeatHold(UUID holdId, UUID trainId, int seats, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
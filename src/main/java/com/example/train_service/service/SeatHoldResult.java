@@ -0,0 +1,35 @@
+package com.example.train_service.service;
+
+/**
+ * Outcome of a hold request: the hold when seats were taken, otherwise why not.
+ */
+public record SeatHoldResult(Status status, SeatHold hold) {
+
+    public enum Status {
+        HELD,
+        TRAIN_NOT_FOUND,
+        NOT_ENOUGH_SEATS
+    }
+
+    static SeatHoldResult held(SeatHold hold) {
+        return new SeatHoldResult(Status.HELD, hold);
+    }
+
+    static SeatHoldResult rejected(Status status) {
+        return new SeatHoldResult(status, null);
+    }
+
+    public boolean isHeld() {
+        return status == Status.HELD;
+    }
+
+    /**
+     * @throws IllegalStateException if no seats were held
+     */
+    public SeatHold requireHold() {
+        if (hold == null) {
+            throw new IllegalStateException("No seats held: " + status);
+        }
+        return hold;
+    }
+}
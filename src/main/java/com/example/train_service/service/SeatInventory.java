@@ -0,0 +1,132 @@
+package com.example.train_service.service;
+
+import com.example.train_service.event.TrainDataChangedEvent;
+import com.example.train_service.model.SeatReservation;
+import com.example.train_service.model.TimeOrderedUuid;
+import com.example.train_service.repository.SeatReservationRepository;
+import com.example.train_service.repository.TrainBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * Seat availability per train, kept in the database so every instance books against the same count.
+ *
+ * {@code trains.available_seats} holds the seats new holds can take. A hold lowers it with one
+ * conditional UPDATE that only matches while enough seats are left, and records itself in
+ * {@code seat_reservations} in the same transaction, so concurrent holds on any number of
+ * instances can never oversell. Committing a hold deletes its row and leaves the seats taken;
+ * releasing or expiring it deletes the row and gives the seats back. Capacity changes move
+ * availability by the same amount (see {@link TrainBatchRepository#updateCapacity}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatInventory {
+
+    // Expired holds returned per sweep; the rest follow on the next one
+    private static final int EXPIRY_BATCH_SIZE = 500;
+
+    private final TrainBatchRepository trainBatchRepository;
+    private final SeatReservationRepository seatReservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    @Value("${train.seats.hold-ttl:10m}")
+    private Duration holdTtl;
+
+    public OptionalInt availableSeats(UUID trainId) {
+        return trainBatchRepository.findAvailableSeats(trainId)
+                .map(OptionalInt::of)
+                .orElseGet(OptionalInt::empty);
+    }
+
+    /**
+     * Takes {@code seats} from the train's free seats for the configured TTL. A successful hold
+     * costs the conditional UPDATE plus the reservation insert; only a rejected one reads the
+     * train again, to tell an unknown train from one without enough free seats.
+     */
+    public SeatHoldResult hold(UUID trainId, int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("seats must be positive");
+        }
+        SeatHold hold = new SeatHold(TimeOrderedUuid.next(), trainId, seats, clock.instant().plus(holdTtl));
+        return transactionTemplate.execute(status -> {
+            if (!trainBatchRepository.takeSeats(trainId, seats)) {
+                return SeatHoldResult.rejected(trainBatchRepository.findAvailableSeats(trainId).isPresent()
+                        ? SeatHoldResult.Status.NOT_ENOUGH_SEATS
+                        : SeatHoldResult.Status.TRAIN_NOT_FOUND);
+            }
+            seatReservationRepository.insert(
+                    new SeatReservation(hold.holdId(), trainId, seats, hold.expiresAt().toEpochMilli()));
+            return SeatHoldResult.held(hold);
+        });
+    }
+
+    /**
+     * Gives the held seats back. False if the hold does not exist (already released, committed or expired).
+     */
+    public boolean release(UUID holdId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                seatReservationRepository.findById(holdId)
+                        .map(this::returnSeats)
+                        .orElse(false)));
+    }
+
+    /**
+     * Turns a live hold into a booking. False if the hold does not exist, has expired
+     * (its seats are given back by the next sweep) or its train was deleted.
+     */
+    public boolean commit(UUID holdId) {
+        return seatReservationRepository.deleteUnexpired(holdId, clock.millis());
+    }
+
+    /**
+     * Gives back the seats of expired holds. Safe to run on every instance at once.
+     */
+    @Scheduled(fixedDelayString = "${train.seats.expiry-sweep-interval:10s}")
+    public void expireHolds() {
+        int expired = 0;
+        for (SeatReservation reservation : seatReservationRepository.findExpired(clock.millis(), EXPIRY_BATCH_SIZE)) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> returnSeats(reservation)))) {
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} seat holds", expired);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrainDataChanged(TrainDataChangedEvent event) {
+        switch (event.type()) {
+            case DELETED, PURGED -> {
+                int removed = seatReservationRepository.deleteOrphans();
+                if (removed > 0) {
+                    log.info("Dropped {} seat holds of deleted trains", removed);
+                }
+            }
+            default -> {
+                // availability lives in the trains row itself
+            }
+        }
+    }
+
+    // Whoever deletes the reservation gives its seats back, so concurrent releases and sweeps return them once
+    private boolean returnSeats(SeatReservation reservation) {
+        if (!seatReservationRepository.delete(reservation.getHoldId())) {
+            return false;
+        }
+        trainBatchRepository.returnSeats(reservation.getTrainId(), reservation.getSeats());
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.train_service.service;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one gap-filling run: how many dates were incomplete, how many rows were inserted, and how long it took.
+ */
+public record SeedReport(int datesFilled, int insertedRows, Duration duration) {
+}
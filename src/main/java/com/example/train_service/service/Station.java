@@ -0,0 +1,8 @@
+package com.example.train_service.service;
+
+/**
+ * A station of the current timetable. Ids are dense and assigned in name order each time the
+ * timetable index is rebuilt, so they are only stable until the next write.
+ */
+public record Station(int id, String name) {
+}
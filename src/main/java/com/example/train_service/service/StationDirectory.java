@@ -0,0 +1,243 @@
+package com.example.train_service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Station names of the timetable, for autocomplete and for mapping free-text input
+ * (any case, extra spaces, small typos) to the canonical spelling before a lookup.
+ *
+ * A dictionary is compiled from {@link TimetableIndex#stationNames()} once per index version:
+ * names are interned to dense ids, and every name and each of its words (so "delhi" finds
+ * "New Delhi") is kept in one sorted array, where a prefix is a contiguous range found by
+ * binary search. When prefixes find too little, names within a small edit distance are added.
+ */
+@Component
+@RequiredArgsConstructor
+public class StationDirectory {
+
+    private final TimetableIndex timetableIndex;
+
+    private volatile Dictionary dictionary;
+
+    /**
+     * Up to {@code limit} stations whose name, or a word of it, starts with the input, followed by
+     * stations whose name starts with something within one or two edits of it (input of three or more characters).
+     *
+     * @throws IllegalStateException if the timetable index has not been built yet
+     */
+    public List<Station> autocomplete(String input, int limit) {
+        String query = normalize(input);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Dictionary current = current();
+        LinkedHashSet<Integer> ids = new LinkedHashSet<>();
+        current.collectPrefixMatches(query, ids, limit);
+        if (ids.size() < limit) {
+            current.collectFuzzyMatches(query, ids, limit, true);
+        }
+        return ids.stream().map(current::station).toList();
+    }
+
+    /**
+     * The station the input most plausibly names: an exact case- and space-insensitive match,
+     * else the single closest name within the edit budget.
+     */
+    public Optional<Station> resolve(String input) {
+        if (input == null || !timetableIndex.isReady()) {
+            return Optional.empty();
+        }
+        String key = normalize(input);
+        Dictionary current = current();
+        Integer id = current.idByKey.get(key);
+        if (id != null) {
+            return Optional.of(current.station(id));
+        }
+        LinkedHashSet<Integer> candidates = new LinkedHashSet<>();
+        current.collectFuzzyMatches(key, candidates, 2, false);
+        // ambiguous typos are left alone rather than guessed
+        return candidates.size() == 1 ? Optional.of(current.station(candidates.iterator().next())) : Optional.empty();
+    }
+
+    /**
+     * The canonical name for search input, or the input unchanged when it names no known station.
+     */
+    public String canonicalName(String input) {
+        return resolve(input).map(Station::name).orElse(input);
+    }
+
+    public List<Station> all() {
+        Dictionary current = current();
+        List<Station> stations = new ArrayList<>(current.names.length);
+        for (int id = 0; id < current.names.length; id++) {
+            stations.add(current.station(id));
+        }
+        return stations;
+    }
+
+    private Dictionary current() {
+        long version = timetableIndex.version();
+        Dictionary current = dictionary;
+        if (current == null || current.version != version) {
+            current = Dictionary.of(timetableIndex.stationNames(), version);
+            dictionary = current;
+        }
+        return current;
+    }
+
+    // Lower case, single spaces, no punctuation
+    static String normalize(String input) {
+        if (input == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder(input.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !key.isEmpty()) {
+                    key.append(' ');
+                }
+                pendingSpace = false;
+                key.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return key.toString();
+    }
+
+    // No edits below three characters, where almost anything is one edit away; two from six on
+    private static int maxEdits(String query) {
+        if (query.length() < 3) {
+            return 0;
+        }
+        return query.length() < 6 ? 1 : 2;
+    }
+
+    private static final class Dictionary {
+        private final long version;
+        private final String[] names;
+        private final String[] keys;
+        private final Map<String, Integer> idByKey;
+        // every name and word of a name, sorted, with the id of its station
+        private final String[] terms;
+        private final int[] termIds;
+
+        private Dictionary(long version, String[] names, String[] keys, Map<String, Integer> idByKey,
+                           String[] terms, int[] termIds) {
+            this.version = version;
+            this.names = names;
+            this.keys = keys;
+            this.idByKey = idByKey;
+            this.terms = terms;
+            this.termIds = termIds;
+        }
+
+        static Dictionary of(List<String> stationNames, long version) {
+            String[] names = stationNames.stream()
+                    .sorted(Comparator.comparing(StationDirectory::normalize))
+                    .toArray(String[]::new);
+            String[] keys = new String[names.length];
+            Map<String, Integer> idByKey = new HashMap<>(names.length * 2);
+            List<Map.Entry<String, Integer>> termList = new ArrayList<>();
+            for (int id = 0; id < names.length; id++) {
+                keys[id] = normalize(names[id]);
+                idByKey.putIfAbsent(keys[id], id);
+                termList.add(Map.entry(keys[id], id));
+                String[] words = keys[id].split(" ");
+                for (int w = 1; w < words.length; w++) {
+                    termList.add(Map.entry(String.join(" ", Arrays.copyOfRange(words, w, words.length)), id));
+                }
+            }
+            termList.sort(Map.Entry.comparingByKey());
+            String[] terms = new String[termList.size()];
+            int[] termIds = new int[termList.size()];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = termList.get(i).getKey();
+                termIds[i] = termList.get(i).getValue();
+            }
+            return new Dictionary(version, names, keys, Map.copyOf(idByKey), terms, termIds);
+        }
+
+        Station station(int id) {
+            return new Station(id, names[id]);
+        }
+
+        void collectPrefixMatches(String query, Set<Integer> ids, int limit) {
+            // first term >= query; terms may repeat, so Arrays.binarySearch could land mid-run
+            int low = 0;
+            int high = terms.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (terms[mid].compareTo(query) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < terms.length && ids.size() < limit && terms[i].startsWith(query); i++) {
+                ids.add(termIds[i]);
+            }
+        }
+
+        /**
+         * Adds stations within the edit budget, closest first. With {@code prefix} the input is
+         * compared with the best-matching start of each name, as it may still be incomplete.
+         */
+        void collectFuzzyMatches(String query, Set<Integer> ids, int limit, boolean prefix) {
+            int budget = maxEdits(query);
+            if (budget == 0) {
+                return;
+            }
+            List<int[]> matches = new ArrayList<>();
+            for (int id = 0; id < keys.length; id++) {
+                int distance = editDistance(query, keys[id], prefix);
+                if (distance <= budget) {
+                    matches.add(new int[]{distance, id});
+                }
+            }
+            matches.sort(Comparator.<int[]>comparingInt(m -> m[0]).thenComparingInt(m -> m[1]));
+            if (!prefix && matches.size() > 1 && matches.get(0)[0] < matches.get(1)[0]) {
+                // a single closest name is unambiguous even if others are within budget
+                matches = matches.subList(0, 1);
+            }
+            for (int[] match : matches) {
+                if (ids.size() >= limit) {
+                    return;
+                }
+                ids.add(match[1]);
+            }
+        }
+
+        // Levenshtein distance of query to target, or to the closest prefix of target
+        private static int editDistance(String query, String target, boolean prefix) {
+            int[] previous = new int[target.length() + 1];
+            int[] row = new int[target.length() + 1];
+            for (int j = 0; j <= target.length(); j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= query.length(); i++) {
+                row[0] = i;
+                for (int j = 1; j <= target.length(); j++) {
+                    int substitution = previous[j - 1] + (query.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1);
+                    row[j] = Math.min(substitution, Math.min(previous[j], row[j - 1]) + 1);
+                }
+                int[] swap = previous;
+                previous = row;
+                row = swap;
+            }
+            if (!prefix) {
+                return previous[target.length()];
+            }
+            int best = Integer.MAX_VALUE;
+            for (int distance : previous) {
+                best = Math.min(best, distance);
+            }
+            return best;
+        }
+    }
+}
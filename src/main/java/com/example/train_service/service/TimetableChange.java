@@ -0,0 +1,23 @@
+package com.example.train_service.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Timetable changes one instance committed during one coalescing window, under a version shared by
+ * all instances that only grows; a window with more ids than fit one event is split across several.
+ * A train created and changed in the same window is listed once, as created; a deleted train is
+ * listed only as deleted. {@code purgedThrough} is set when trains departing on or before that
+ * date were purged. {@code resync} means the changed ids are unknown (e.g. after a bulk import)
+ * and consumers should reload.
+ */
+public record TimetableChange(long version,
+                              Instant occurredAt,
+                              List<UUID> created,
+                              List<UUID> updated,
+                              List<UUID> deleted,
+                              LocalDate purgedThrough,
+                              boolean resync) {
+}
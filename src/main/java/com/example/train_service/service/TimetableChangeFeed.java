@@ -0,0 +1,460 @@
+package com.example.train_service.service;
+
+import com.example.train_service.event.TrainDataChangedEvent;
+import com.example.train_service.repository.DataVersionRepository;
+import com.example.train_service.repository.TimetableChangeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Server-sent stream of committed timetable changes, so other services can keep a local copy
+ * up to date instead of re-reading the whole timetable.
+ *
+ * Each instance collects the change events it commits and, once per {@code train.changes.coalesce-window},
+ * appends them to the shared {@code timetable_changes} log as {@link TimetableChange}s of at most
+ * {@code train.changes.max-ids-per-event} ids. Versions come from a database counter and commit in
+ * order, so every instance then reads the same new entries from the log and pushes them to its
+ * subscribers, and a subscriber can resume after its last seen version (SSE {@code Last-Event-ID})
+ * on any instance. The last {@code train.changes.buffer-size} entries are kept; a subscriber whose
+ * version is older than that, or unknown, gets a {@code resync} event and should reload everything.
+ *
+ * Events are queued per subscriber, at most {@code train.changes.subscriber-queue-size} ahead of what
+ * it has received, and sent from a separate thread per busy subscriber, so a slow client never holds
+ * up the scheduler or other clients. One that falls behind is topped up from the log as it catches up.
+ */
+@Slf4j
+@Component
+public class TimetableChangeFeed {
+
+    static final String CHANGE_EVENT = "change";
+    static final String RESYNC_EVENT = "resync";
+
+    private final DataVersionRepository dataVersionRepository;
+    private final TimetableChangeRepository timetableChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final int bufferSize;
+    private final int maxIdsPerEvent;
+    private final int subscriberQueueSize;
+    private final Duration emitterTimeout;
+
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    // guarded by pendingLock
+    private PendingChanges pending = new PendingChanges();
+
+    // Serializes reading the log and queueing changes; never held while sending
+    private final ReentrantLock queueLock = new ReentrantLock();
+    // written under queueLock; -1 until read from the database
+    private volatile long latestVersion = -1;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // At most one task per subscriber with queued events
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TimetableChangeFeed(DataVersionRepository dataVersionRepository,
+                               TimetableChangeRepository timetableChangeRepository,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${train.changes.buffer-size:1024}") int bufferSize,
+                               @Value("${train.changes.max-ids-per-event:500}") int maxIdsPerEvent,
+                               @Value("${train.changes.subscriber-queue-size:256}") int subscriberQueueSize,
+                               @Value("${train.changes.emitter-timeout:30m}") Duration emitterTimeout) {
+        this.dataVersionRepository = dataVersionRepository;
+        this.timetableChangeRepository = timetableChangeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxIdsPerEvent = maxIdsPerEvent;
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.emitterTimeout = emitterTimeout;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrainDataChanged(TrainDataChangedEvent event) {
+        pendingLock.lock();
+        try {
+            pending.add(event);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Opens a stream that first replays logged changes after {@code sinceVersion} and then follows
+     * new ones. Without a version it starts from now, so a new consumer should subscribe first and
+     * then load the timetable, applying changes that arrive meanwhile.
+     */
+    public SseEmitter subscribe(Long sinceVersion) {
+        return register(new SseEmitter(emitterTimeout.toMillis()), sinceVersion);
+    }
+
+    // Package-private so tests can pass emitters that record or stall what is sent
+    SseEmitter register(SseEmitter emitter, Long sinceVersion) {
+        Subscriber subscriber = new Subscriber(emitter, sinceVersion != null ? sinceVersion : currentVersion(),
+                subscriberQueueSize);
+        emitter.onCompletion(() -> drop(subscriber));
+        emitter.onTimeout(() -> drop(subscriber));
+        emitter.onError(e -> drop(subscriber));
+        subscribers.add(subscriber);
+        queueLock.lock();
+        try {
+            queueChanges(subscriber, List.of());
+        } finally {
+            queueLock.unlock();
+        }
+        scheduleSend(subscriber);
+        return emitter;
+    }
+
+    /**
+     * The newest version this instance has read from the log.
+     */
+    public long currentVersion() {
+        long version = latestVersion;
+        if (version >= 0) {
+            return version;
+        }
+        queueLock.lock();
+        try {
+            return knownVersion();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Appends what this instance collected since the last window to the log, then reads every
+     * new entry, whichever instance wrote it, and queues it for the subscribers.
+     */
+    @Scheduled(fixedDelayString = "${train.changes.coalesce-window:500ms}")
+    public void publishPending() {
+        writePending();
+        queueLock.lock();
+        try {
+            List<TimetableChange> fresh = readAfter(knownVersion(), bufferSize);
+            if (!fresh.isEmpty()) {
+                latestVersion = fresh.get(fresh.size() - 1).version();
+            }
+            for (Subscriber subscriber : subscribers) {
+                queueChanges(subscriber, fresh);
+            }
+        } finally {
+            queueLock.unlock();
+        }
+        subscribers.forEach(this::scheduleSend);
+    }
+
+    // Keeps idle connections from being closed by proxies
+    @Scheduled(fixedDelayString = "${train.changes.heartbeat-interval:15s}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            // a full queue is being sent already
+            if (subscriber.queue.offer(SseEmitter.event().comment("heartbeat"))) {
+                scheduleSend(subscriber);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writePending();
+        senders.shutdownNow();
+    }
+
+    private void writePending() {
+        PendingChanges window;
+        pendingLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            window = pending;
+            pending = new PendingChanges();
+        } finally {
+            pendingLock.unlock();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<TimetableChange> changes = window.toChanges(maxIdsPerEvent,
+                        () -> dataVersionRepository.incrementAndGet(DataVersionRepository.TIMETABLE_CHANGES));
+                for (TimetableChange change : changes) {
+                    timetableChangeRepository.insert(change.version(), toJson(change));
+                }
+                timetableChangeRepository.deleteUpTo(changes.get(changes.size() - 1).version() - bufferSize);
+            });
+        } catch (DataAccessException e) {
+            // retried with the next window
+            pendingLock.lock();
+            try {
+                window.addAll(pending);
+                pending = window;
+            } finally {
+                pendingLock.unlock();
+            }
+            log.warn("Failed to write timetable changes to the change log: {}", e.getMessage());
+        }
+    }
+
+    // Called under queueLock
+    private long knownVersion() {
+        if (latestVersion < 0) {
+            latestVersion = dataVersionRepository.current(DataVersionRepository.TIMETABLE_CHANGES);
+        }
+        return latestVersion;
+    }
+
+    // Called under queueLock. Queues changes after the subscriber's version until its queue is full
+    private void queueChanges(Subscriber subscriber, List<TimetableChange> fresh) {
+        long latest = knownVersion();
+        if (subscriber.lastQueued == latest || subscriber.queue.remainingCapacity() == 0) {
+            return;
+        }
+        List<TimetableChange> changes;
+        if (!fresh.isEmpty() && subscriber.lastQueued >= fresh.get(0).version() - 1 && subscriber.lastQueued < latest) {
+            changes = fresh;
+        } else if (subscriber.lastQueued > latest) {
+            // written by another instance and not read here yet, or never handed out at all
+            if (subscriber.lastQueued > dataVersionRepository.current(DataVersionRepository.TIMETABLE_CHANGES)) {
+                queueResync(subscriber, latest);
+            }
+            return;
+        } else {
+            changes = readAfter(subscriber.lastQueued, subscriber.queue.remainingCapacity());
+            // versions are consecutive, so anything but the next one means the log was pruned past it
+            if (changes.isEmpty() || changes.get(0).version() != subscriber.lastQueued + 1) {
+                queueResync(subscriber, latest);
+                return;
+            }
+        }
+        for (TimetableChange change : changes) {
+            if (change.version() <= subscriber.lastQueued) {
+                continue;
+            }
+            if (!subscriber.queue.offer(SseEmitter.event().id(Long.toString(change.version())).name(CHANGE_EVENT)
+                    .data(change, MediaType.APPLICATION_JSON))) {
+                // the rest is read from the log once the subscriber has caught up
+                return;
+            }
+            subscriber.lastQueued = change.version();
+        }
+    }
+
+    private void queueResync(Subscriber subscriber, long latest) {
+        if (subscriber.queue.offer(SseEmitter.event().id(Long.toString(latest)).name(RESYNC_EVENT)
+                .data(Map.of("version", latest), MediaType.APPLICATION_JSON))) {
+            subscriber.lastQueued = latest;
+        }
+    }
+
+    private List<TimetableChange> readAfter(long version, int limit) {
+        return timetableChangeRepository.findPayloadsAfter(version, limit).stream()
+                .map(this::fromJson)
+                .toList();
+    }
+
+    private void scheduleSend(Subscriber subscriber) {
+        if (subscriber.queue.isEmpty() || !subscriber.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> sendQueued(subscriber));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            subscriber.sending.set(false);
+        }
+    }
+
+    private void sendQueued(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                if (!send(subscriber, event)) {
+                    return;
+                }
+            }
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // events queued after the last poll
+        scheduleSend(subscriber);
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // client went away; the emitter callbacks may not fire for a broken connection
+            log.debug("Dropping change feed subscriber: {}", e.getMessage());
+            drop(subscriber);
+            return false;
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+    }
+
+    private String toJson(TimetableChange change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TimetableChange fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, TimetableChange.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // guarded by queueLock
+        private long lastQueued;
+
+        private Subscriber(SseEmitter emitter, long lastQueued, int queueSize) {
+            this.emitter = emitter;
+            this.lastQueued = lastQueued;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+
+    // Collects one window's events; ids keep first-seen order
+    private static final class PendingChanges {
+        private final Set<UUID> created = new LinkedHashSet<>();
+        private final Set<UUID> updated = new LinkedHashSet<>();
+        private final Set<UUID> deleted = new LinkedHashSet<>();
+        private LocalDate purgedThrough;
+        private boolean resync;
+        private boolean empty = true;
+
+        void add(TrainDataChangedEvent event) {
+            switch (event.type()) {
+                case CREATED, SEEDED -> created(event.trainIds());
+                case UPDATED -> updated(event.trainIds());
+                case DELETED -> deleted(event.trainIds());
+                case PURGED -> purged(event.purgedThrough());
+                case IMPORTED -> resync();
+            }
+        }
+
+        // Applies a later window on top of this one
+        void addAll(PendingChanges later) {
+            if (later.empty) {
+                return;
+            }
+            created(later.created);
+            updated(later.updated);
+            deleted(later.deleted);
+            if (later.purgedThrough != null) {
+                purged(later.purgedThrough);
+            }
+            if (later.resync) {
+                resync();
+            }
+        }
+
+        private void created(Collection<UUID> ids) {
+            empty = false;
+            created.addAll(ids);
+        }
+
+        private void updated(Collection<UUID> ids) {
+            empty = false;
+            ids.stream().filter(id -> !created.contains(id)).forEach(updated::add);
+        }
+
+        private void deleted(Collection<UUID> ids) {
+            empty = false;
+            ids.forEach(id -> {
+                created.remove(id);
+                updated.remove(id);
+                deleted.add(id);
+            });
+        }
+
+        private void purged(LocalDate date) {
+            empty = false;
+            if (purgedThrough == null || date.isAfter(purgedThrough)) {
+                purgedThrough = date;
+            }
+        }
+
+        private void resync() {
+            empty = false;
+            resync = true;
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        /**
+         * This window as changes of at most {@code maxIds} ids each, numbered by {@code nextVersion};
+         * the purge date and resync flag go with the first.
+         */
+        List<TimetableChange> toChanges(int maxIds, LongSupplier nextVersion) {
+            Instant now = Instant.now();
+            List<TimetableChange> changes = new ArrayList<>();
+            Iterator<UUID> createdIds = created.iterator();
+            Iterator<UUID> updatedIds = updated.iterator();
+            Iterator<UUID> deletedIds = deleted.iterator();
+            do {
+                List<UUID> createdPart = take(createdIds, maxIds);
+                List<UUID> updatedPart = take(updatedIds, maxIds - createdPart.size());
+                List<UUID> deletedPart = take(deletedIds, maxIds - createdPart.size() - updatedPart.size());
+                boolean first = changes.isEmpty();
+                changes.add(new TimetableChange(nextVersion.getAsLong(), now, createdPart, updatedPart, deletedPart,
+                        first ? purgedThrough : null, first && resync));
+            } while (createdIds.hasNext() || updatedIds.hasNext() || deletedIds.hasNext());
+            return changes;
+        }
+
+        private static List<UUID> take(Iterator<UUID> ids, int limit) {
+            List<UUID> part = new ArrayList<>();
+            while (part.size() < limit && ids.hasNext()) {
+                part.add(ids.next());
+            }
+            return List.copyOf(part);
+        }
+    }
+}
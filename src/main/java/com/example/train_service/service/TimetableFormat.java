@@ -0,0 +1,201 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Line formats for bulk timetable import and export: one train per line.
+ *
+ * CSV has a header line with the {@link #CSV_COLUMNS} in that order. Fields are quoted as in
+ * RFC 4180 when they contain a comma, quote or line break, with quotes inside doubled; since
+ * rows are read line by line, a quoted field cannot span lines. NDJSON lines are {@link Train}
+ * JSON objects; ids in them are ignored.
+ */
+public enum TimetableFormat {
+
+    CSV(new MediaType("text", "csv")) {
+        @Override
+        public Train parse(String line, ObjectMapper objectMapper) {
+            List<String> fields = splitCsvLine(line);
+            if (fields.size() != CSV_COLUMNS.length) {
+                throw new IllegalArgumentException("expected " + CSV_COLUMNS.length + " fields but found " + fields.size());
+            }
+            try {
+                return Train.builder()
+                        .trainNumber(Integer.valueOf(fields.get(0).trim()))
+                        .source(fields.get(1).trim())
+                        .destination(fields.get(2).trim())
+                        .departureDate(LocalDate.parse(fields.get(3).trim()))
+                        .departureTime(LocalTime.parse(fields.get(4).trim()))
+                        .arrivalTime(LocalTime.parse(fields.get(5).trim()))
+                        .totalSeats(Integer.valueOf(fields.get(6).trim()))
+                        .build();
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public String format(Train train, ObjectMapper objectMapper) {
+            return train.getTrainNumber() + "," + quoteCsv(train.getSource()) + "," + quoteCsv(train.getDestination()) + ","
+                    + train.getDepartureDate() + "," + train.getDepartureTime() + "," + train.getArrivalTime() + ","
+                    + train.getTotalSeats();
+        }
+
+        @Override
+        public Optional<String> header() {
+            return Optional.of(String.join(",", CSV_COLUMNS));
+        }
+    },
+
+    NDJSON(MediaType.APPLICATION_NDJSON) {
+        @Override
+        public Train parse(String line, ObjectMapper objectMapper) {
+            try {
+                return objectMapper.readValue(line, Train.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(e.getOriginalMessage(), e);
+            }
+        }
+
+        @Override
+        public String format(Train train, ObjectMapper objectMapper) {
+            try {
+                return objectMapper.writeValueAsString(train);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize train " + train.getId(), e);
+            }
+        }
+
+        @Override
+        public Optional<String> header() {
+            return Optional.empty();
+        }
+    };
+
+    public static final String[] CSV_COLUMNS = {
+            "trainNumber", "source", "destination", "departureDate", "departureTime", "arrivalTime", "totalSeats"};
+
+    private final MediaType mediaType;
+
+    TimetableFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Parses one line into a train without an id.
+     *
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    public abstract Train parse(String line, ObjectMapper objectMapper);
+
+    /** One line, without the trailing newline. */
+    public abstract String format(Train train, ObjectMapper objectMapper);
+
+    /** The header line, for formats that have one. */
+    public abstract Optional<String> header();
+
+    public static Optional<TimetableFormat> forMediaType(MediaType mediaType) {
+        for (TimetableFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(mediaType)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Splits one CSV line into unquoted fields.
+     *
+     * @throws IllegalArgumentException on an unterminated quoted field, or a quote that does not
+     *                                  start a field or is not followed by a comma or the end of the line
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i == line.length()) {
+                        throw new IllegalArgumentException("unterminated quoted field " + (fields.size() + 1));
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("unexpected text after quoted field " + (fields.size() + 1));
+                }
+            } else {
+                while (i < line.length() && line.charAt(i) != ',') {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        throw new IllegalArgumentException("quote inside unquoted field " + (fields.size() + 1));
+                    }
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            field.setLength(0);
+            if (i == line.length()) {
+                return fields;
+            }
+            // skip the comma
+            i++;
+        }
+    }
+
+    static String quoteCsv(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Field checks shared by all formats.
+     *
+     * @throws IllegalArgumentException naming the first invalid field
+     */
+    static void validate(Train train) {
+        if (train.getTrainNumber() == null || train.getTrainNumber() <= 0) {
+            throw new IllegalArgumentException("trainNumber must be a positive number");
+        }
+        if (train.getSource() == null || train.getSource().isBlank()) {
+            throw new IllegalArgumentException("source is required");
+        }
+        if (train.getDestination() == null || train.getDestination().isBlank()) {
+            throw new IllegalArgumentException("destination is required");
+        }
+        if (train.getSource().equalsIgnoreCase(train.getDestination())) {
+            throw new IllegalArgumentException("source and destination must differ");
+        }
+        if (train.getDepartureDate() == null || train.getDepartureTime() == null || train.getArrivalTime() == null) {
+            throw new IllegalArgumentException("departureDate, departureTime and arrivalTime are required");
+        }
+        if (train.getTotalSeats() == null || train.getTotalSeats() <= 0) {
+            throw new IllegalArgumentException("totalSeats must be a positive number");
+        }
+    }
+}
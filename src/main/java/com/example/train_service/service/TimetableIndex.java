@@ -0,0 +1,357 @@
+package com.example.train_service.service;
+
+import com.example.train_service.datasource.PrimaryReads;
+import com.example.train_service.event.TimetableReloadedEvent;
+import com.example.train_service.event.TrainDataChangedEvent;
+import com.example.train_service.model.Train;
+import com.example.train_service.repository.DataVersionRepository;
+import com.example.train_service.repository.TrainRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Immutable, read-optimized copy of the whole timetable.
+ * Lookups never touch the database or take a lock; a new snapshot is swapped in
+ * with one reference assignment after every committed write.
+ *
+ * Writes by this instance reach it through {@link TrainDataChangedEvent}. A create, update or delete
+ * reloads only the trains it names, by id, and applies them to a copy of the current snapshot on the
+ * writing thread. Seeds, imports and purges change too many rows for that and ask for a full rebuild,
+ * which runs on the task executor; requests arriving while one is pending share it. Writes by other
+ * instances are noticed by polling the shared trains version ({@link DataVersionRepository#TRAINS})
+ * every {@code train.index.refresh-interval}, a single-row read; a rebuild for them is announced
+ * with a {@link TimetableReloadedEvent}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TimetableIndex {
+
+    private final TrainRepository trainRepository;
+    private final DataVersionRepository dataVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // set while a requested rebuild is queued but has not started reading
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    // guarded by rebuildLock
+    private long builds;
+
+    // null until the first successful build; callers fall back to the database meanwhile
+    private volatile Snapshot snapshot;
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Trains for an exact (source, destination, date), matched case-insensitively like MySQL does.
+     */
+    public List<Train> findByRoute(String source, String destination, LocalDate departureDate) {
+        return requireSnapshot().byRoute.getOrDefault(new RouteKey(source, destination, departureDate), List.of());
+    }
+
+    public List<Train> findByTrainNumber(Integer trainNumber) {
+        return requireSnapshot().byTrainNumber.getOrDefault(trainNumber, List.of());
+    }
+
+    public List<Train> findByDepartureDate(LocalDate departureDate) {
+        return requireSnapshot().byDate.getOrDefault(departureDate, List.of());
+    }
+
+    /**
+     * Every station that appears as a source or destination, once per case-insensitive name,
+     * spelled as in its first train.
+     */
+    public List<String> stationNames() {
+        return requireSnapshot().stationNames;
+    }
+
+    /**
+     * Increases with every rebuild, so derived structures can tell when they are stale.
+     * Read it before reading data to avoid tagging newer data with an older version.
+     */
+    public long version() {
+        return requireSnapshot().version;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrainDataChanged(TrainDataChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED, DELETED -> apply(event);
+            case SEEDED, PURGED, IMPORTED -> requestRebuild();
+        }
+    }
+
+    /**
+     * Shared trains version the current snapshot is known to include, 0 before the first build.
+     */
+    public long dataVersion() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.dataVersion;
+    }
+
+    /**
+     * Rebuilds if the trains version moved since the current snapshot was loaded,
+     * which is how changes committed by other instances reach this one.
+     */
+    @Scheduled(fixedDelayString = "${train.index.refresh-interval:10s}")
+    public void refreshIfChanged() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // the startup build has not finished yet
+            return;
+        }
+        try {
+            long dataVersion = PrimaryReads.call(() -> dataVersionRepository.current(DataVersionRepository.TRAINS));
+            if (dataVersion != current.dataVersion) {
+                log.info("Trains version moved from {} to {}; rebuilding timetable index", current.dataVersion, dataVersion);
+                rebuild();
+                eventPublisher.publishEvent(new TimetableReloadedEvent(dataVersion));
+            }
+        } catch (Exception e) {
+            log.error("Failed to check the trains version:", e);
+        }
+    }
+
+    /**
+     * Reloads all trains and atomically replaces the current snapshot.
+     * Rebuilds are serialized so that a slower, older rebuild can never overwrite a newer one.
+     * A lock rather than synchronized keeps a virtual thread from pinning its carrier during the query.
+     * Reads from the primary: a rebuild follows a commit that a read replica may not have yet.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            // read before the trains, so the snapshot is never tagged with a version newer than its data
+            long dataVersion = PrimaryReads.call(() -> dataVersionRepository.current(DataVersionRepository.TRAINS));
+            Snapshot fresh = Snapshot.of(PrimaryReads.call(trainRepository::findAll), ++builds, dataVersion);
+            snapshot = fresh;
+            log.info("Rebuilt timetable index with {} trains in {} ms",
+                    fresh.size, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            // keep serving the previous snapshot rather than failing the write that triggered us
+            log.error("Failed to rebuild timetable index:", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Schedules a full rebuild unless one is already queued. The flag is cleared before the rebuild
+     * reads anything, so a write committed after that point queues another rebuild.
+     */
+    void requestRebuild() {
+        if (!rebuildPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            applicationTaskExecutor.execute(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            });
+        } catch (RuntimeException e) {
+            rebuildPending.set(false);
+            log.error("Failed to schedule a timetable index rebuild:", e);
+        }
+    }
+
+    /**
+     * Reloads the trains named by the event from the primary and swaps in a copy of the snapshot
+     * with just those trains replaced; a deleted train is simply not found.
+     *
+     * The snapshot takes the event's trains version only if it is the next one after its own.
+     * Otherwise another write, here or on another instance, came in between, and the scheduled
+     * {@link #refreshIfChanged()} rebuilds in full.
+     */
+    private void apply(TrainDataChangedEvent event) {
+        rebuildLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null) {
+                // the startup build failed; only a full build can recover
+                requestRebuild();
+                return;
+            }
+            List<Train> changed = PrimaryReads.call(() -> trainRepository.findAllById(event.trainIds()));
+            long dataVersion = event.dataVersion() == current.dataVersion + 1 ? event.dataVersion() : current.dataVersion;
+            snapshot = current.with(event.trainIds(), changed, ++builds, dataVersion);
+        } catch (Exception e) {
+            log.error("Failed to apply {} of {} to the timetable index; rebuilding:", event.type(), event.trainIds(), e);
+            requestRebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Snapshot requireSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Timetable index has not been built yet");
+        }
+        return current;
+    }
+
+    private record RouteKey(String source, String destination, LocalDate departureDate) {
+        RouteKey {
+            source = source.toLowerCase(Locale.ROOT);
+            destination = destination.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // counts source and destination separately, so a train between two names counts once for each
+    private record StationEntry(String name, int trains) {
+    }
+
+    private static final class Snapshot {
+        private final Map<UUID, Train> byId;
+        private final Map<RouteKey, List<Train>> byRoute;
+        private final Map<Integer, List<Train>> byTrainNumber;
+        private final Map<LocalDate, List<Train>> byDate;
+        // lower-cased name to spelling and number of trains calling there
+        private final Map<String, StationEntry> stations;
+        private final List<String> stationNames;
+        private final int size;
+        private final long version;
+        // shared trains version the data was loaded at
+        private final long dataVersion;
+
+        private Snapshot(Map<UUID, Train> byId, Map<RouteKey, List<Train>> byRoute,
+                         Map<Integer, List<Train>> byTrainNumber, Map<LocalDate, List<Train>> byDate,
+                         Map<String, StationEntry> stations, long version, long dataVersion) {
+            this.byId = byId;
+            this.byRoute = byRoute;
+            this.byTrainNumber = byTrainNumber;
+            this.byDate = byDate;
+            this.stations = stations;
+            this.stationNames = stations.values().stream().map(StationEntry::name).toList();
+            this.size = byId.size();
+            this.version = version;
+            this.dataVersion = dataVersion;
+        }
+
+        static Snapshot of(List<Train> trains, long version, long dataVersion) {
+            Map<UUID, Train> byId = new HashMap<>(trains.size() * 2);
+            Map<RouteKey, List<Train>> byRoute = new HashMap<>();
+            Map<Integer, List<Train>> byTrainNumber = new HashMap<>();
+            Map<LocalDate, List<Train>> byDate = new HashMap<>();
+            Map<String, StationEntry> stations = new LinkedHashMap<>();
+            for (Train train : trains) {
+                byId.put(train.getId(), train);
+                addStation(stations, train.getSource());
+                addStation(stations, train.getDestination());
+                byRoute.computeIfAbsent(routeKey(train), k -> new ArrayList<>()).add(train);
+                byTrainNumber.computeIfAbsent(train.getTrainNumber(), k -> new ArrayList<>()).add(train);
+                byDate.computeIfAbsent(train.getDepartureDate(), k -> new ArrayList<>()).add(train);
+            }
+            return new Snapshot(Collections.unmodifiableMap(byId), freeze(byRoute), freeze(byTrainNumber),
+                    freeze(byDate), Collections.unmodifiableMap(stations), version, dataVersion);
+        }
+
+        /**
+         * A copy with the trains under {@code ids} replaced by {@code changed}; ids missing from
+         * {@code changed} are removed. Only the lists a train leaves or joins are copied, and a train
+         * that keeps its key keeps its place in the list.
+         */
+        Snapshot with(Collection<UUID> ids, List<Train> changed, long version, long dataVersion) {
+            Map<UUID, Train> fresh = new HashMap<>();
+            changed.forEach(train -> fresh.put(train.getId(), train));
+
+            Map<UUID, Train> byId = new HashMap<>(this.byId);
+            Map<RouteKey, List<Train>> byRoute = new HashMap<>(this.byRoute);
+            Map<Integer, List<Train>> byTrainNumber = new HashMap<>(this.byTrainNumber);
+            Map<LocalDate, List<Train>> byDate = new HashMap<>(this.byDate);
+            Map<String, StationEntry> stations = new LinkedHashMap<>(this.stations);
+            for (UUID id : ids) {
+                Train old = byId.get(id);
+                Train train = fresh.get(id);
+                if (old == null && train == null) {
+                    continue;
+                }
+                if (train == null) {
+                    byId.remove(id);
+                } else {
+                    byId.put(id, train);
+                }
+                move(byRoute, Snapshot::routeKey, old, train);
+                move(byTrainNumber, Train::getTrainNumber, old, train);
+                move(byDate, Train::getDepartureDate, old, train);
+                if (old != null) {
+                    removeStation(stations, old.getSource());
+                    removeStation(stations, old.getDestination());
+                }
+                if (train != null) {
+                    addStation(stations, train.getSource());
+                    addStation(stations, train.getDestination());
+                }
+            }
+            return new Snapshot(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byRoute),
+                    Collections.unmodifiableMap(byTrainNumber), Collections.unmodifiableMap(byDate),
+                    Collections.unmodifiableMap(stations), version, dataVersion);
+        }
+
+        private static RouteKey routeKey(Train train) {
+            return new RouteKey(train.getSource(), train.getDestination(), train.getDepartureDate());
+        }
+
+        private static <K> void move(Map<K, List<Train>> index, Function<Train, K> key, Train old, Train train) {
+            K oldKey = old == null ? null : key.apply(old);
+            K newKey = train == null ? null : key.apply(train);
+            if (oldKey != null && oldKey.equals(newKey)) {
+                index.put(oldKey, index.get(oldKey).stream().map(t -> t.getId().equals(train.getId()) ? train : t).toList());
+                return;
+            }
+            if (oldKey != null) {
+                List<Train> rest = index.get(oldKey).stream().filter(t -> !t.getId().equals(old.getId())).toList();
+                if (rest.isEmpty()) {
+                    index.remove(oldKey);
+                } else {
+                    index.put(oldKey, rest);
+                }
+            }
+            if (newKey != null) {
+                List<Train> joined = new ArrayList<>(index.getOrDefault(newKey, List.of()));
+                joined.add(train);
+                index.put(newKey, List.copyOf(joined));
+            }
+        }
+
+        private static void addStation(Map<String, StationEntry> stations, String name) {
+            stations.merge(name.toLowerCase(Locale.ROOT), new StationEntry(name, 1),
+                    (entry, one) -> new StationEntry(entry.name(), entry.trains() + 1));
+        }
+
+        private static void removeStation(Map<String, StationEntry> stations, String name) {
+            stations.computeIfPresent(name.toLowerCase(Locale.ROOT),
+                    (key, entry) -> entry.trains() == 1 ? null : new StationEntry(entry.name(), entry.trains() - 1));
+        }
+
+        private static <K> Map<K, List<Train>> freeze(Map<K, List<Train>> source) {
+            Map<K, List<Train>> frozen = new HashMap<>(source.size() * 2);
+            source.forEach((key, list) -> frozen.put(key, List.copyOf(list)));
+            return Collections.unmodifiableMap(frozen);
+        }
+    }
+}
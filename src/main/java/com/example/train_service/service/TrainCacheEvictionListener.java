@@ -0,0 +1,63 @@
+package com.example.train_service.service;
+
+import com.example.train_service.event.TimetableReloadedEvent;
+import com.example.train_service.event.TrainDataChangedEvent;
+import com.example.train_service.model.Train;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Keeps the {@code trainsById} cache in step with the database. Runs after commit so a
+ * concurrent read cannot re-cache the old row between the eviction and the commit.
+ * Writes by other instances carry no ids here, so the cache is cleared once the timetable
+ * index has picked them up.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrainCacheEvictionListener {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrainDataChanged(TrainDataChangedEvent event) {
+        Cache cache = cacheManager.getCache(TrainServiceImpl.TRAINS_BY_ID_CACHE);
+        if (cache == null) {
+            return;
+        }
+        switch (event.type()) {
+            case UPDATED, DELETED -> event.trainIds().forEach(cache::evict);
+            case PURGED -> evictDepartingOnOrBefore(cache, event.purgedThrough());
+            // an import may have updated any train
+            case IMPORTED -> cache.clear();
+            default -> {
+                // new ids cannot be cached yet since misses are never stored
+            }
+        }
+    }
+
+    @EventListener
+    public void onTimetableReloaded(TimetableReloadedEvent event) {
+        Cache cache = cacheManager.getCache(TrainServiceImpl.TRAINS_BY_ID_CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    // Drops exactly the cached trains the purge deleted instead of clearing the whole cache
+    private void evictDepartingOnOrBefore(Cache cache, LocalDate cutoffDate) {
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            Map<?, ?> entries = nativeCache.asMap();
+            entries.values().removeIf(value -> value instanceof Train train
+                    && !train.getDepartureDate().isAfter(cutoffDate));
+        } else {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Keyset position in the (departureDate, trainNumber) ordering of the timetable.
+ * Clients only ever see the opaque encoded form.
+ */
+public record TrainCursor(LocalDate departureDate, int trainNumber) {
+
+    public static TrainCursor after(Train train) {
+        return new TrainCursor(train.getDepartureDate(), train.getTrainNumber());
+    }
+
+    public String encode() {
+        String raw = departureDate + ":" + trainNumber;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encode()}
+     */
+    public static TrainCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new TrainCursor(LocalDate.parse(raw.substring(0, separator)),
+                    Integer.parseInt(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + encoded, e);
+        }
+    }
+}
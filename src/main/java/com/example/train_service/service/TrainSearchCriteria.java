@@ -0,0 +1,34 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+
+import java.time.LocalDate;
+
+/**
+ * Optional search filters; a null field means "any". Blank strings are treated as absent.
+ */
+public record TrainSearchCriteria(Integer trainNumber, String source, String destination, LocalDate departureDate) {
+
+    public TrainSearchCriteria {
+        source = (source == null || source.isBlank()) ? null : source;
+        destination = (destination == null || destination.isBlank()) ? null : destination;
+    }
+
+    public boolean isEmpty() {
+        return trainNumber == null && source == null && destination == null && departureDate == null;
+    }
+
+    public boolean isExactRoute() {
+        return source != null && destination != null && departureDate != null;
+    }
+
+    /**
+     * In-memory equivalent of the SQL filters, ignoring case like the database collation.
+     */
+    public boolean matches(Train train) {
+        return (trainNumber == null || trainNumber.equals(train.getTrainNumber()))
+                && (source == null || source.equalsIgnoreCase(train.getSource()))
+                && (destination == null || destination.equalsIgnoreCase(train.getDestination()))
+                && (departureDate == null || departureDate.equals(train.getDepartureDate()));
+    }
+}
@@ -1,17 +1,25 @@
 package com.example.train_service.service;
 
 import com.example.train_service.model.Train;
+import com.example.train_service.repository.LeaseFence;
 
+import java.io.Reader;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface TrainService {
 
     void deleteTrainsByDate(LocalDate cutoffDate);
 
+    void deleteTrainsByDate(LocalDate cutoffDate, LeaseFence fence);
+
     List<Train> findByDepartureDate(LocalDate date);
 
     boolean hasTrainsForDate(LocalDate date);
@@ -20,20 +28,44 @@ public interface TrainService {
 
     void seedInitialDays(int days);
 
+    SeedReport fillMissingTrains(LocalDate from, int days, LeaseFence fence);
+
     Set<LocalDate> getAllDistinctDepartureDates();
 
     Train createTrain(Train train);
 
-    List<Train> getAllTrains();
+    List<Train> getTrainsPage(TrainCursor after, int limit);
+
+    void forEachTrain(Consumer<Train> action);
+
+    ImportReport importTrains(Reader reader, TimetableFormat format);
     List<Train> findByTrainNumber(Integer trainNumber);
 
 
 
     Optional<Train> getTrain(UUID id);
 
+    List<Train> getTrains(Collection<UUID> ids);
+
     Train updateTrain(UUID id, Train updatedTrain);
 
     void deleteTrain(UUID id);
 
+    OptionalInt getAvailableSeats(UUID trainId);
+
+    SeatHoldResult holdSeats(UUID trainId, int seats);
+
+    boolean releaseHold(UUID holdId);
+
+    boolean commitHold(UUID holdId);
+
     List<Train> searchTrains(String source, String destination, LocalDate departureDate);
+
+    List<Itinerary> planJourneys(JourneyQuery query);
+
+    List<Train> searchTrains(TrainSearchCriteria criteria);
+
+    SortedMap<LocalDate, List<Train>> searchTrainsBetween(String source, String destination, LocalDate from, LocalDate to);
+
+    SortedMap<LocalDate, Long> countTrainsBetween(String source, String destination, LocalDate from, LocalDate to);
 }
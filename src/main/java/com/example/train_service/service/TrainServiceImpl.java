@@ -1,35 +1,163 @@
 package com.example.train_service.service;
 
+import com.example.train_service.datasource.PrimaryReads;
+import com.example.train_service.event.TrainDataChangedEvent;
+import com.example.train_service.event.TrainDataChangedEvent.ChangeType;
+import com.example.train_service.metrics.TrainMetrics;
+import com.example.train_service.model.TimeOrderedUuid;
 import com.example.train_service.model.Train;
+import com.example.train_service.repository.DataVersionRepository;
+import com.example.train_service.repository.DepartureDateCount;
+import com.example.train_service.repository.LeaseFence;
+import com.example.train_service.repository.LeaseLostException;
+import com.example.train_service.repository.RouteTemplateNumberRepository;
+import com.example.train_service.repository.TrainBatchRepository;
 import com.example.train_service.repository.TrainRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.example.train_service.repository.TrainSpecifications.*;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TrainServiceImpl implements TrainService {
 
+    public static final String TRAINS_BY_ID_CACHE = "trainsById";
+
+    private static final Sort SEARCH_ORDER = Sort.by("departureDate", "departureTime", "trainNumber");
+
     private final TrainRepository trainRepository;
+    private final TrainBatchRepository trainBatchRepository;
+    private final DataVersionRepository dataVersionRepository;
+    private final TimetableIndex timetableIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+    private final EntityManager entityManager;
+    private final TrainMetrics trainMetrics;
+    private final SeatInventory seatInventory;
+    private final JourneyPlanner journeyPlanner;
+    private final ObjectMapper objectMapper;
+    private final RouteTemplateLoader routeTemplateLoader;
+    private final RouteTemplateNumberRepository routeTemplateNumberRepository;
+
+    @Value("${train.seeding.batch-size:500}")
+    private int batchSize;
+
+    @Value("${train.import.max-reported-errors:1000}")
+    private int importMaxReportedErrors;
+
+    @Value("${train.seeding.parallelism:4}")
+    private int seedingParallelism;
+
+    @Value("${train.export.page-size:1000}")
+    private int exportPageSize;
+
+    @Value("${train.purge.chunk-size:500}")
+    private int purgeChunkSize;
+
+    @Value("${train.purge.chunk-pause:50ms}")
+    private Duration purgeChunkPause;
 
     /**
      * Delete all trains with departure date <= cutoffDate.
+     * Rows are deleted by primary key in chunks of {@code train.purge.chunk-size}, each chunk in its
+     * own short transaction with a pause in between, so locks are never held for long.
      */
     @Override
-    @Transactional
     public void deleteTrainsByDate(LocalDate cutoffDate) {
-        trainRepository.deleteByDepartureDateLessThanEqual(cutoffDate);
-        log.info("Deleted trains with departure date on or before {}", cutoffDate);
+        deleteTrainsByDate(cutoffDate, null);
     }
+
+    /**
+     * With a fence, every chunk's DELETE only applies while the scheduler lease is still held;
+     * once it is lost the purge stops with a {@link LeaseLostException}, keeping the chunks already committed.
+     */
     @Override
+    public void deleteTrainsByDate(LocalDate cutoffDate, LeaseFence fence) {
+        long start = System.nanoTime();
+        int deleted = 0;
+        int chunks = 0;
+        try {
+            while (true) {
+                Integer chunkDeleted = transactionTemplate.execute(status -> {
+                    List<UUID> ids = trainBatchRepository.findIdsDepartingOnOrBefore(cutoffDate, purgeChunkSize);
+                    int rows = fence == null
+                            ? trainBatchRepository.deleteAllById(ids)
+                            : trainBatchRepository.deleteAllById(ids, fence);
+                    if (rows > 0) {
+                        markTrainsChanged();
+                    }
+                    return rows;
+                });
+                if (chunkDeleted == null || chunkDeleted == 0) {
+                    break;
+                }
+                deleted += chunkDeleted;
+                chunks++;
+                log.debug("Purge progress: {} trains deleted in {} chunks so far", deleted, chunks);
+                if (chunkDeleted < purgeChunkSize || !pauseBetweenChunks()) {
+                    break;
+                }
+            }
+        } finally {
+            trainMetrics.recordPurge(deleted, chunks, Duration.ofNanos(System.nanoTime() - start));
+            log.info("Deleted {} trains with departure date on or before {} in {} chunks", deleted, cutoffDate, chunks);
+            if (deleted > 0) {
+                eventPublisher.publishEvent(TrainDataChangedEvent.purged(cutoffDate));
+            }
+        }
+    }
+
+    // Gives waiting searches and admin writes a turn between chunks; false if interrupted
+    private boolean pauseBetweenChunks() {
+        try {
+            Thread.sleep(purgeChunkPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Purge interrupted; remaining expired trains will be removed on the next run");
+            return false;
+        }
+    }
+
+    /**
+     * Served from the in-memory timetable index once it is built.
+     */
+    @Override
+    @Timed(value = "train.service.calls", histogram = true)
+    @Transactional(readOnly = true)
     public List<Train> findByTrainNumber(Integer trainNumber) {
+        if (timetableIndex.isReady()) {
+            return timetableIndex.findByTrainNumber(trainNumber);
+        }
         return trainRepository.findByTrainNumber(trainNumber);
     }
 
@@ -38,6 +166,7 @@ public class TrainServiceImpl implements TrainService {
      * Find trains by departure date.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Train> findByDepartureDate(LocalDate date) {
         return trainRepository.findByDepartureDate(date);
     }
@@ -46,78 +175,164 @@ public class TrainServiceImpl implements TrainService {
      * Check if trains exist for a given date.
      */
     @Override
+    @Transactional(readOnly = true)
     public boolean hasTrainsForDate(LocalDate date) {
         return trainRepository.existsByDepartureDate(date);
     }
 
     /**
-     * Ensure all 380 unique trains are present for the given date
-     * (20 cities back & forth). Skip insertion if train number already exists for that date.
+     * Ensure every route template has its train on the given date
+     * (380 for the built-in 20-city network). Skip insertion if train number already exists for that date.
      */
     @Override
     @Transactional
     public void ensureFiftyTrainsForDate(LocalDate date) {
-        // Fetch train numbers already existing for this date only
-        Set<Integer> trainNumbersForDate = trainRepository.findByDepartureDate(date)
-                .stream()
-                .map(Train::getTrainNumber)
-                .collect(Collectors.toSet());
-
-        List<Train> templates = getAllCityPairTemplates();
+        List<UUID> inserted = insertMissingTrains(date, null);
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(TrainDataChangedEvent.seeded(inserted));
+        }
+    }
 
-        int insertedCount = 0;
+    /**
+     * Diffs the route templates against the train numbers already stored for the date and
+     * streams the missing ones into the batch writer, one JDBC batch of
+     * {@code train.seeding.batch-size} trains at a time, so only one batch is ever materialized.
+     * With a fence, the inserts only apply while the scheduler lease is held.
+     */
+    private List<UUID> insertMissingTrains(LocalDate date, LeaseFence fence) {
+        // Fetch train numbers already existing for this date only
+        Set<Integer> trainNumbersForDate = new HashSet<>(trainRepository.findTrainNumbersByDepartureDate(date));
 
-        for (Train template : templates) {
-            int trainNumber = template.getTrainNumber();
+        RouteTemplates templates = routeTemplateLoader.templates();
+        List<UUID> inserted = new ArrayList<>();
+        List<Train> batch = new ArrayList<>(batchSize);
 
+        for (int i = 0; i < templates.size(); i++) {
             // Skip insertion if train number already exists on this date
-            if (trainNumbersForDate.contains(trainNumber)) {
-                continue;
+            if (trainNumbersForDate.add(templates.trainNumber(i))) {
+                Train train = templates.toTrain(i, date);
+                train.setId(TimeOrderedUuid.next());
+                batch.add(train);
+                inserted.add(train.getId());
+                if (batch.size() == batchSize) {
+                    insertAll(batch, fence);
+                    batch.clear();
+                }
             }
+        }
+        insertAll(batch, fence);
+        if (!inserted.isEmpty()) {
+            markTrainsChanged();
+        }
 
-            Train newTrain = Train.builder()
-                    .id(UUID.randomUUID())
-                    .trainNumber(trainNumber)
-                    .departureDate(date)
-                    .departureTime(template.getDepartureTime())
-                    .arrivalTime(template.getArrivalTime())
-                    .source(template.getSource())
-                    .destination(template.getDestination())
-                    .totalSeats(template.getTotalSeats())
-                    .build();
+        log.info("Inserted {} new trains for date {}", inserted.size(), date);
+        return inserted;
+    }
 
-            trainRepository.save(newTrain);
-            insertedCount++;
-            trainNumbersForDate.add(trainNumber); // maintain uniqueness in this run
+    private void insertAll(List<Train> trains, LeaseFence fence) {
+        if (fence == null) {
+            trainBatchRepository.insertAll(trains);
+        } else {
+            trainBatchRepository.insertAll(trains, fence);
         }
-
-        log.info("Inserted {} new trains for date {}", insertedCount, date);
     }
 
     /**
      * Bulk seed train data for the given number of days starting from today.
-     * Seeds trains for each day independently.
      */
     @Override
     public void seedInitialDays(int days) {
         LocalDate today = LocalDate.now();
+        List<LocalDate> dates = new ArrayList<>(days);
         for (int i = 0; i < days; i++) {
-            LocalDate date = today.plusDays(i);
-            try {
-                log.info("Seeding trains for date {}", date);
-                // Transactional boundary inside ensureFiftyTrainsForDate
-                ensureFiftyTrainsForDate(date);
-                log.info("Completed seeding trains for date {}", date);
-            } catch (Exception ex) {
-                log.error("Error seeding trains for date {}: ", date, ex);
+            dates.add(today.plusDays(i));
+        }
+        seedDates(dates, null);
+    }
+
+    /**
+     * One grouped count over the window finds the dates that are short of template trains;
+     * only those dates are diffed and topped up. The count joins {@code route_template_numbers},
+     * which is first synced with this instance's templates, so it binds no list of train numbers
+     * however large the network is. A complete window costs that count and one read of the numbers.
+     */
+    @Override
+    public SeedReport fillMissingTrains(LocalDate from, int days, LeaseFence fence) {
+        long start = System.nanoTime();
+        LocalDate to = from.plusDays(days - 1L);
+        Set<Integer> templateNumbers = routeTemplateLoader.templates().trainNumbers();
+
+        Map<LocalDate, Long> countsByDate = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            routeTemplateNumberRepository.replaceAll(templateNumbers);
+            for (DepartureDateCount row : trainRepository.countTemplateTrainsByDepartureDateBetween(from, to)) {
+                countsByDate.put(row.getDepartureDate(), row.getTrainCount());
             }
+        });
+
+        List<LocalDate> incompleteDates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (countsByDate.getOrDefault(date, 0L) < templateNumbers.size()) {
+                incompleteDates.add(date);
+            }
+        }
+
+        int inserted = incompleteDates.isEmpty() ? 0 : seedDates(incompleteDates, fence);
+        return new SeedReport(incompleteDates.size(), inserted, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Seeds the given dates in parallel with at most {@code train.seeding.parallelism} workers,
+     * each date in its own transaction, and publishes a single change event at the end.
+     * Workers run on the application task executor, which uses virtual threads when they are enabled.
+     * Returns the number of rows inserted. If the fence's lease is lost, remaining dates are skipped and
+     * the {@link LeaseLostException} is rethrown once the dates already seeded have been published.
+     */
+    private int seedDates(Collection<LocalDate> dates, LeaseFence fence) {
+        long start = System.nanoTime();
+        Queue<LocalDate> pending = new ConcurrentLinkedQueue<>(dates);
+        Queue<UUID> inserted = new ConcurrentLinkedQueue<>();
+        AtomicReference<LeaseLostException> leaseLost = new AtomicReference<>();
+
+        Runnable worker = () -> {
+            LocalDate date;
+            while ((date = pending.poll()) != null) {
+                LocalDate seedDate = date;
+                try {
+                    log.info("Seeding trains for date {}", seedDate);
+                    inserted.addAll(transactionTemplate.execute(status -> insertMissingTrains(seedDate, fence)));
+                    log.info("Completed seeding trains for date {}", seedDate);
+                } catch (LeaseLostException ex) {
+                    leaseLost.set(ex);
+                    pending.clear();
+                } catch (Exception ex) {
+                    log.error("Error seeding trains for date {}: ", seedDate, ex);
+                }
+            }
+        };
+
+        int workers = Math.max(1, Math.min(seedingParallelism, dates.size()));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(worker, applicationTaskExecutor);
         }
+        CompletableFuture.allOf(futures).join();
+        trainMetrics.recordSeeding(dates.size(), inserted.size(), Duration.ofNanos(System.nanoTime() - start));
+
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(TrainDataChangedEvent.seeded(inserted));
+        }
+        if (leaseLost.get() != null) {
+            throw leaseLost.get();
+        }
+        return inserted.size();
     }
 
     /**
      * Returns all distinct departure dates currently present.
      */
     @Override
+    @Transactional(readOnly = true)
     public Set<LocalDate> getAllDistinctDepartureDates() {
         return trainRepository.findDistinctDepartureDates();
     }
@@ -127,18 +342,172 @@ public class TrainServiceImpl implements TrainService {
     @Override
     @Transactional
     public Train createTrain(Train train) {
-        train.setId(UUID.randomUUID());
-        return trainRepository.save(train);
+        // id is generated on persist; clearing it also lets save() persist without a merge SELECT
+        train.setId(null);
+        // a new train has no bookings yet
+        train.setAvailableSeats(train.getTotalSeats());
+        Train saved = trainRepository.save(train);
+        long dataVersion = markTrainsChanged();
+        eventPublisher.publishEvent(TrainDataChangedEvent.of(ChangeType.CREATED, saved.getId(), dataVersion));
+        return saved;
     }
 
+    /**
+     * One page in (departureDate, trainNumber) order; pass a null cursor for the first page.
+     */
     @Override
-    public List<Train> getAllTrains() {
-        return trainRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<Train> getTrainsPage(TrainCursor after, int limit) {
+        if (after == null) {
+            return trainRepository.findFirstPage(Limit.of(limit));
+        }
+        return trainRepository.findPageAfter(after.departureDate(), after.trainNumber(), Limit.of(limit));
     }
 
+    /**
+     * Walks every train in keyset pages of {@code train.export.page-size}. Each page is read in its
+     * own short query, and the action runs between queries, so a slow consumer holds no connection
+     * or transaction. Trains are detached once handled so the persistence context does not grow with the table.
+     */
     @Override
+    public void forEachTrain(Consumer<Train> action) {
+        TrainCursor after = null;
+        while (true) {
+            List<Train> page = after == null
+                    ? trainRepository.findFirstPage(Limit.of(exportPageSize))
+                    : trainRepository.findPageAfter(after.departureDate(), after.trainNumber(), Limit.of(exportPageSize));
+            for (Train train : page) {
+                action.accept(train);
+                entityManager.detach(train);
+            }
+            if (page.size() < exportPageSize) {
+                return;
+            }
+            after = TrainCursor.after(page.get(page.size() - 1));
+        }
+    }
+
+    /**
+     * Reads the timetable line by line and upserts valid rows in batches of
+     * {@code train.seeding.batch-size}, one transaction per batch, so neither the file nor the
+     * result set is held in memory. Invalid rows, and rows of a batch the database rejects,
+     * are reported by line number and do not stop the import.
+     */
+    @Override
+    public ImportReport importTrains(Reader reader, TimetableFormat format) {
+        long start = System.nanoTime();
+        List<Train> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        ImportProgress progress = new ImportProgress();
+
+        try {
+            BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+            long lineNumber = 0;
+            Optional<String> header = format.header();
+            if (header.isPresent()) {
+                String first = lines.readLine();
+                lineNumber++;
+                if (first == null || !header.get().equalsIgnoreCase(first.trim())) {
+                    progress.reject(lineNumber, "expected header " + header.get());
+                    return progress.report(start);
+                }
+            }
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                progress.rowsRead++;
+                try {
+                    Train train = format.parse(line, objectMapper);
+                    TimetableFormat.validate(train);
+                    train.setId(TimeOrderedUuid.next());
+                    train.setAvailableSeats(train.getTotalSeats());
+                    batch.add(train);
+                    batchLines.add(lineNumber);
+                } catch (IllegalArgumentException e) {
+                    progress.reject(lineNumber, e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    upsertBatch(batch, batchLines, progress);
+                }
+            }
+            upsertBatch(batch, batchLines, progress);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (progress.rowsUpserted > 0) {
+                eventPublisher.publishEvent(TrainDataChangedEvent.imported());
+            }
+        }
+        ImportReport report = progress.report(start);
+        log.info("Imported {} of {} {} rows ({} rejected) in {} ms", report.rowsUpserted(), report.rowsRead(),
+                format, report.rowsRejected(), report.duration().toMillis());
+        return report;
+    }
+
+    private void upsertBatch(List<Train> batch, List<Long> batchLines, ImportProgress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            progress.rowsUpserted += transactionTemplate.execute(status -> {
+                int rows = trainBatchRepository.upsertAll(batch);
+                markTrainsChanged();
+                return rows;
+            });
+        } catch (DataAccessException e) {
+            String message = "batch rejected by the database: " + e.getMostSpecificCause().getMessage();
+            batchLines.forEach(lineNumber -> progress.reject(lineNumber, message));
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    // Running totals of one import; keeps at most importMaxReportedErrors row errors
+    private final class ImportProgress {
+        int rowsRead;
+        int rowsUpserted;
+        int rowsRejected;
+        final List<ImportReport.RowError> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            rowsRejected++;
+            if (errors.size() < importMaxReportedErrors) {
+                errors.add(new ImportReport.RowError(line, message));
+            }
+        }
+
+        ImportReport report(long startNanos) {
+            return new ImportReport(rowsRead, rowsUpserted, rowsRejected, List.copyOf(errors),
+                    Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+
+    /**
+     * Read-through cached; entries are evicted by {@link TrainCacheEvictionListener} once writes commit.
+     * Misses are not cached. A fill reads the replica only if it has the trains version the timetable
+     * index holds, so a lagging replica cannot put back a row that was just evicted.
+     */
+    @Override
+    @Timed(value = "train.service.calls", histogram = true)
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = TRAINS_BY_ID_CACHE, unless = "#result == null")
     public Optional<Train> getTrain(UUID id) {
-        return trainRepository.findById(id);
+        return PrimaryReads.callAtVersion(timetableIndex.dataVersion(), () -> trainRepository.findById(id));
+    }
+
+    /**
+     * Fetches all requested trains with a single IN query; unknown ids are simply absent from the result.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Train> getTrains(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return trainRepository.findAllById(ids);
     }
 
     @Override
@@ -152,8 +521,15 @@ public class TrainServiceImpl implements TrainService {
                     train.setArrivalTime(updatedTrain.getArrivalTime());
                     train.setSource(updatedTrain.getSource());
                     train.setDestination(updatedTrain.getDestination());
+                    if (!Objects.equals(train.getTotalSeats(), updatedTrain.getTotalSeats())) {
+                        // held and booked seats stay taken; the entity update then writes the same total
+                        trainBatchRepository.updateCapacity(id, updatedTrain.getTotalSeats());
+                    }
                     train.setTotalSeats(updatedTrain.getTotalSeats());
-                    return trainRepository.save(train);
+                    Train saved = trainRepository.save(train);
+                    long dataVersion = markTrainsChanged();
+                    eventPublisher.publishEvent(TrainDataChangedEvent.of(ChangeType.UPDATED, id, dataVersion));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Train not found with id " + id));
     }
@@ -162,54 +538,140 @@ public class TrainServiceImpl implements TrainService {
     @Transactional
     public void deleteTrain(UUID id) {
         trainRepository.deleteById(id);
+        long dataVersion = markTrainsChanged();
+        eventPublisher.publishEvent(TrainDataChangedEvent.of(ChangeType.DELETED, id, dataVersion));
+    }
+
+    /**
+     * Bumps the shared trains version inside the current write transaction, after its row changes
+     * so the version row stays locked only briefly. Other instances poll it to refresh their
+     * {@link TimetableIndex}; the change event only reaches this one.
+     *
+     * @return the version this write moved the trains to, for the change event
+     */
+    private long markTrainsChanged() {
+        return dataVersionRepository.incrementAndGet(DataVersionRepository.TRAINS);
+    }
+
+    /**
+     * Connection search over the in-memory timetable; no database access per request.
+     */
+    @Override
+    @Timed(value = "train.service.calls", histogram = true)
+    public List<Itinerary> planJourneys(JourneyQuery query) {
+        if (!journeyPlanner.isReady()) {
+            throw new IllegalStateException("Timetable index has not been built yet");
+        }
+        return journeyPlanner.plan(query);
     }
 
+    /**
+     * Trains for a route on every date in [from, to], grouped by date; dates without trains map to
+     * an empty list. Served from the timetable index, else with one range query.
+     */
+    @Override
+    @Timed(value = "train.service.calls", histogram = true)
+    @Transactional(readOnly = true)
+    public SortedMap<LocalDate, List<Train>> searchTrainsBetween(String source, String destination,
+                                                                 LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, List<Train>> byDate = new TreeMap<>();
+        if (timetableIndex.isReady()) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                byDate.put(date, timetableIndex.findByRoute(source, destination, date));
+            }
+            return byDate;
+        }
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            byDate.put(date, new ArrayList<>());
+        }
+        for (Train train : trainRepository.findRouteBetween(source, destination, from, to)) {
+            byDate.get(train.getDepartureDate()).add(train);
+        }
+        return byDate;
+    }
+
+    /**
+     * Per-date train counts for a route, for calendar views; dates without trains count 0.
+     */
+    @Override
+    @Timed(value = "train.service.calls", histogram = true)
+    @Transactional(readOnly = true)
+    public SortedMap<LocalDate, Long> countTrainsBetween(String source, String destination,
+                                                         LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Long> counts = new TreeMap<>();
+        if (timetableIndex.isReady()) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                counts.put(date, (long) timetableIndex.findByRoute(source, destination, date).size());
+            }
+            return counts;
+        }
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            counts.put(date, 0L);
+        }
+        for (DepartureDateCount row : trainRepository.countRouteBetween(source, destination, from, to)) {
+            counts.put(row.getDepartureDate(), row.getTrainCount());
+        }
+        return counts;
+    }
+
+    /** Seat inventory, served from {@link SeatInventory} */
+
     @Override
+    public OptionalInt getAvailableSeats(UUID trainId) {
+        return seatInventory.availableSeats(trainId);
+    }
+
+    @Override
+    public SeatHoldResult holdSeats(UUID trainId, int seats) {
+        return seatInventory.hold(trainId, seats);
+    }
+
+    @Override
+    public boolean releaseHold(UUID holdId) {
+        return seatInventory.release(holdId);
+    }
+
+    @Override
+    public boolean commitHold(UUID holdId) {
+        return seatInventory.commit(holdId);
+    }
+
+    /**
+     * Served from the in-memory timetable index once it is built.
+     */
+    @Override
+    @Timed(value = "train.service.calls", histogram = true)
+    @Transactional(readOnly = true)
     public List<Train> searchTrains(String source, String destination, LocalDate departureDate) {
+        if (timetableIndex.isReady()) {
+            return timetableIndex.findByRoute(source, destination, departureDate);
+        }
         return trainRepository.findBySourceAndDestinationAndDepartureDate(source, destination, departureDate);
     }
 
     /**
-     * Prepare all 380 back-and-forth route templates between 20 cities.
-     * The train numbers are unique per route and schedule.
-     */
-    private List<Train> getAllCityPairTemplates() {
-        List<String> cities = Arrays.asList(
-                "Mumbai", "Delhi", "Bangalore", "Chennai", "Kolkata",
-                "Hyderabad", "Ahmedabad", "Pune", "Jaipur", "Lucknow",
-                "Nagpur", "Surat", "Kanpur", "Indore", "Thane",
-                "Bhopal", "Visakhapatnam", "Patna", "Vadodara", "Ghaziabad"
-        );
-
-        List<Train> templates = new ArrayList<>(380);
-        LocalTime baseDepartureTime = LocalTime.of(6, 0);
-        int journeyDurationMins = 210; // 3 hours 30 minutes
-        int trainNumberBase = 13000;
-        int trainNum = trainNumberBase;
-        int timeIncrementMins = 4; // spacing between departure times
-
-        for (String source : cities) {
-            for (String destination : cities) {
-                if (!source.equals(destination)) {
-                    LocalTime departureTime = baseDepartureTime.plusMinutes(timeIncrementMins * (trainNum - trainNumberBase));
-                    LocalTime arrivalTime = departureTime.plusMinutes(journeyDurationMins);
-
-                    Train template = Train.builder()
-                            .id(null) // assigned on insert
-                            .trainNumber(trainNum)
-                            .source(source)
-                            .destination(destination)
-                            .departureTime(departureTime)
-                            .arrivalTime(arrivalTime)
-                            .totalSeats(50)
-                            .departureDate(null) // assigned on insert
-                            .build();
-
-                    templates.add(template);
-                    trainNum++;
-                }
+     * Train-number and exact-route lookups are answered from the timetable index; every other
+     * combination of filters becomes one indexed query built from {@link TrainSpecifications}.
+     */
+    @Override
+    @Timed(value = "train.service.calls", histogram = true)
+    @Transactional(readOnly = true)
+    public List<Train> searchTrains(TrainSearchCriteria criteria) {
+        if (timetableIndex.isReady()) {
+            if (criteria.trainNumber() != null) {
+                return timetableIndex.findByTrainNumber(criteria.trainNumber()).stream()
+                        .filter(criteria::matches)
+                        .toList();
+            }
+            if (criteria.isExactRoute()) {
+                return timetableIndex.findByRoute(criteria.source(), criteria.destination(), criteria.departureDate());
             }
         }
-        return templates;
+        Specification<Train> specification = Specification.allOf(
+                hasTrainNumber(criteria.trainNumber()),
+                hasSource(criteria.source()),
+                hasDestination(criteria.destination()),
+                departsOn(criteria.departureDate()));
+        return trainRepository.findAll(specification, SEARCH_ORDER);
     }
 }
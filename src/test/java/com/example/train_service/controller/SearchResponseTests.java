@@ -0,0 +1,107 @@
+package com.example.train_service.controller;
+
+import com.example.train_service.model.TimeOrderedUuid;
+import com.example.train_service.model.Train;
+import com.example.train_service.repository.TrainBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SearchResponseTests {
+
+    private static final String QUERY = "/api/v1/trains/search?source=Etag Source";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TrainBatchRepository trainBatchRepository;
+
+    @Test
+    void gzipAndIdentityResponsesHaveTheirOwnETags() throws Exception {
+        trainBatchRepository.insertAll(List.of(train()));
+
+        MockHttpServletResponse plain = search(null, null);
+        MockHttpServletResponse gzipped = search("gzip, deflate", null);
+
+        assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNotEquals(plain.getHeader(HttpHeaders.ETAG), gzipped.getHeader(HttpHeaders.ETAG));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(plain.getContentAsByteArray(), in.readAllBytes());
+        }
+
+        // each ETag only validates its own representation
+        assertEquals(304, search("gzip", gzipped.getHeader(HttpHeaders.ETAG)).getStatus());
+        assertEquals(200, search(null, gzipped.getHeader(HttpHeaders.ETAG)).getStatus());
+        assertEquals(304, search(null, plain.getHeader(HttpHeaders.ETAG)).getStatus());
+    }
+
+    @Test
+    void refusedGzipIsNotSent() throws Exception {
+        assertNull(search("gzip;q=0, identity", null).getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(search("br", null).getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", search("*", null).getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(search("*;q=0", null).getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", search("br;q=1.0, GZIP;q=0.5", null).getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void responsesVaryByAcceptAndAcceptEncoding() throws Exception {
+        MockHttpServletResponse json = mockMvc.perform(get(QUERY).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse();
+        MockHttpServletResponse cbor = mockMvc.perform(get(QUERY).accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse();
+
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, cbor.getContentType());
+        assertNotEquals(json.getHeader(HttpHeaders.ETAG), cbor.getHeader(HttpHeaders.ETAG));
+        for (MockHttpServletResponse response : List.of(json, cbor)) {
+            List<String> vary = response.getHeaders(HttpHeaders.VARY).stream()
+                    .flatMap(value -> Arrays.stream(value.split(",")))
+                    .map(String::trim)
+                    .toList();
+            assertTrue(vary.containsAll(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)), vary.toString());
+        }
+    }
+
+    private MockHttpServletResponse search(String acceptEncoding, String ifNoneMatch) throws Exception {
+        var request = get(QUERY);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private static Train train() {
+        return Train.builder()
+                .id(TimeOrderedUuid.next())
+                .trainNumber(95001)
+                .source("Etag Source")
+                .destination("Etag Destination")
+                .departureDate(LocalDate.of(2099, 4, 1))
+                .departureTime(LocalTime.of(8, 0))
+                .arrivalTime(LocalTime.of(10, 0))
+                .totalSeats(10)
+                .build();
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.train_service.datasource;
+
+import com.example.train_service.controller.SearchResponseCache;
+import com.example.train_service.model.TimeOrderedUuid;
+import com.example.train_service.model.Train;
+import com.example.train_service.repository.DataVersionRepository;
+import com.example.train_service.repository.TrainBatchRepository;
+import com.example.train_service.service.TimetableIndex;
+import com.example.train_service.service.TrainSearchCriteria;
+import com.example.train_service.service.TrainService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two embedded databases stand in for a primary and its replica. The replica gets the primary's
+ * schema but never its rows, like a replica that lags indefinitely, so where a read went shows
+ * in whether it sees a row written to the primary.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+        "train.datasource.replica.url=jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+        "train.datasource.replica.pin-after-write=300ms"
+})
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaRoutingTests {
+
+    private static final LocalDate DATE = LocalDate.of(2099, 1, 1);
+
+    @Autowired
+    private TrainService trainService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TrainBatchRepository trainBatchRepository;
+
+    @Autowired
+    private DataVersionRepository dataVersionRepository;
+
+    @Autowired
+    private TimetableIndex timetableIndex;
+
+    @Autowired
+    private SearchResponseCache searchResponseCache;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @BeforeAll
+    void copySchemaToReplica() throws Exception {
+        File script = File.createTempFile("routing-schema", ".sql");
+        try {
+            new JdbcTemplate(primaryDataSource).execute("SCRIPT NODATA TO '" + script.getAbsolutePath() + "'");
+            new JdbcTemplate(replicaDataSource).execute("RUNSCRIPT FROM '" + script.getAbsolutePath() + "'");
+        } finally {
+            Files.deleteIfExists(script.toPath());
+        }
+        for (HikariDataSource database : List.of(primaryDataSource, replicaDataSource)) {
+            JdbcTemplate direct = new JdbcTemplate(database);
+            direct.execute("CREATE TABLE routing_probe (name VARCHAR(16))");
+            direct.update("INSERT INTO routing_probe VALUES (?)", database.getPoolName());
+        }
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionsUseTheReplica() {
+        assertEquals("replica", probe(true));
+        assertEquals("primary", probe(false));
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM routing_probe", String.class));
+    }
+
+    @Test
+    @Order(2)
+    void adminWritesAreReadBackFromThePrimaryUntilTheWindowCloses() throws Exception {
+        Train created = trainService.createTrain(train(91001));
+
+        assertEquals(1, trainService.getTrains(List.of(created.getId())).size());
+        assertEquals(1, trainService.findByDepartureDate(DATE).size());
+        assertEquals("primary", probe(true));
+
+        Thread.sleep(400);
+        assertEquals("replica", probe(true));
+        assertTrue(trainService.getTrains(List.of(created.getId())).isEmpty());
+        assertTrue(trainService.findByDepartureDate(DATE).isEmpty());
+        // the timetable index is built from the primary regardless
+        assertEquals(1, trainService.findByTrainNumber(91001).size());
+    }
+
+    @Test
+    @Order(3)
+    void searchMissesReadTheReplicaOnlyOnceItHasTheIndexedVersion() {
+        TrainSearchCriteria criteria = new TrainSearchCriteria(null, "Routing Source", null, null);
+        // the index cannot answer a source-only search, so it goes to the database
+        assertTrue(trainService.searchTrains(criteria).isEmpty());
+
+        // the replica has no trains version at all, so the miss is loaded from the primary
+        assertEquals(1, searchResponseCache.get("routing", false, () -> trainService.searchTrains(criteria)).items());
+
+        // a replica at the index's version is trusted; this one has the version but not the row
+        replicaAtVersion(timetableIndex.dataVersion());
+        try {
+            assertEquals(0, searchResponseCache.get("routing-caught-up", false, () -> trainService.searchTrains(criteria)).items());
+        } finally {
+            replicaAtVersion(0);
+        }
+    }
+
+    @Test
+    @Order(4)
+    void trainServiceReadsUseTheReplica() {
+        Train created = trainService.findByTrainNumber(91001).get(0);
+        assertTrue(trainService.getTrains(List.of(created.getId())).isEmpty());
+        assertTrue(trainService.searchTrains(new TrainSearchCriteria(null, "Routing Source", null, DATE)).isEmpty());
+
+        replicaAtVersion(timetableIndex.dataVersion());
+        try {
+            assertTrue(trainService.getTrain(created.getId()).isEmpty());
+        } finally {
+            replicaAtVersion(0);
+        }
+        // the miss was not cached, and a replica behind the index does not fill the cache
+        assertTrue(trainService.getTrain(created.getId()).isPresent());
+    }
+
+    @Test
+    @Order(5)
+    void writesByAnotherInstanceAreReadFromThePrimaryWithoutPinningOtherReads() {
+        Train train = train(91002);
+        train.setDepartureDate(DATE.plusDays(1));
+        transactionTemplate.executeWithoutResult(status -> {
+            trainBatchRepository.insertAll(List.of(train));
+            dataVersionRepository.increment(DataVersionRepository.TRAINS);
+        });
+
+        timetableIndex.refreshIfChanged();
+
+        assertEquals("replica", probe(true));
+        assertTrue(trainService.getTrain(train.getId()).isPresent());
+    }
+
+    @Test
+    void connectionsWithExplicitCredentialsComeFromThePrimary() throws Exception {
+        DataSource replica = mock(DataSource.class);
+        DataSource primary = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(primary.getConnection("admin", "secret")).thenReturn(connection);
+
+        ReplicaReadDataSource dataSource = new ReplicaReadDataSource(replica, primary, new RecentWriteWindow(Duration.ZERO), null);
+
+        assertSame(connection, dataSource.getConnection("admin", "secret"));
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    @Order(6)
+    void readsFallBackToThePrimaryWhenTheReplicaIsDown() {
+        replicaDataSource.close();
+
+        assertEquals("primary", probe(true));
+        assertEquals(1, trainService.findByDepartureDate(DATE).size());
+    }
+
+    // the replica's copy of the shared trains version; 0 removes it
+    private void replicaAtVersion(long version) {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.update("DELETE FROM data_versions WHERE name = ?", DataVersionRepository.TRAINS);
+        if (version > 0) {
+            replica.update("INSERT INTO data_versions (name, version) VALUES (?, ?)", DataVersionRepository.TRAINS, version);
+        }
+    }
+
+    private String probe(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM routing_probe", String.class));
+    }
+
+    private static Train train(int trainNumber) {
+        return Train.builder()
+                .id(TimeOrderedUuid.next())
+                .trainNumber(trainNumber)
+                .source("Routing Source")
+                .destination("Routing Destination")
+                .departureDate(DATE)
+                .departureTime(LocalTime.of(8, 0))
+                .arrivalTime(LocalTime.of(10, 0))
+                .totalSeats(10)
+                .availableSeats(10)
+                .build();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.train_service.scheduler;
+
+import com.example.train_service.model.TimeOrderedUuid;
+import com.example.train_service.model.Train;
+import com.example.train_service.repository.LeaseFence;
+import com.example.train_service.repository.LeaseLostException;
+import com.example.train_service.repository.SchedulerLeaseRepository;
+import com.example.train_service.repository.TrainBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TrainDataSchedulerLeaseTests {
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private TrainBatchRepository trainBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void onlyOneOfSeveralInstancesRunsACycle() throws Exception {
+        int instances = 4;
+        List<TrainDataScheduler> schedulers = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            schedulers.add(beanFactory.createBean(TrainDataScheduler.class));
+        }
+        jdbcTemplate.update("DELETE FROM scheduler_lease WHERE name = ?", TrainDataScheduler.LEASE_NAME);
+        long runsBefore = successfulRuns();
+        double skipsBefore = skips("lease_held");
+
+        ExecutorService pool = Executors.newFixedThreadPool(instances);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (TrainDataScheduler scheduler : schedulers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                scheduler.maintainTrainDataFrequent();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(1, successfulRuns() - runsBefore);
+        // the application's own scheduler may also have fired and been skipped
+        assertTrue(skips("lease_held") - skipsBefore >= instances - 1);
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndFencesOutThePreviousHolder() {
+        String name = "lease-test";
+        ManualClock clock = new ManualClock();
+        SchedulerLeaseRepository leaseRepository = new SchedulerLeaseRepository(jdbcTemplate, clock);
+
+        OptionalLong first = leaseRepository.tryAcquire(name, "node-a", Duration.ofSeconds(100));
+        assertTrue(first.isPresent());
+        clock.advance(Duration.ofSeconds(101));
+
+        OptionalLong second = leaseRepository.tryAcquire(name, "node-b", Duration.ofMinutes(1));
+        assertTrue(second.isPresent());
+        assertTrue(second.getAsLong() > first.getAsLong());
+        assertFalse(leaseRepository.holds(name, "node-a", first.getAsLong()));
+        assertTrue(leaseRepository.holds(name, "node-b", second.getAsLong()));
+        assertFalse(leaseRepository.renew(name, "node-a", first.getAsLong(), Duration.ofMinutes(1)));
+
+        assertTrue(leaseRepository.tryAcquire(name, "node-c", Duration.ofMinutes(1)).isEmpty());
+    }
+
+    @Test
+    void renewalKeepsALongRunningHolderInPlace() {
+        String name = "lease-renewal-test";
+        ManualClock clock = new ManualClock();
+        SchedulerLeaseRepository leaseRepository = new SchedulerLeaseRepository(jdbcTemplate, clock);
+
+        long token = leaseRepository.tryAcquire(name, "node-a", Duration.ofSeconds(100)).orElseThrow();
+        for (int i = 0; i < 5; i++) {
+            clock.advance(Duration.ofSeconds(60));
+            assertTrue(leaseRepository.renew(name, "node-a", token, Duration.ofSeconds(100)));
+        }
+
+        assertTrue(leaseRepository.tryAcquire(name, "node-b", Duration.ofSeconds(100)).isEmpty());
+        assertTrue(leaseRepository.holds(name, "node-a", token));
+
+        clock.advance(Duration.ofSeconds(101));
+        assertFalse(leaseRepository.renew(name, "node-a", token, Duration.ofSeconds(100)));
+    }
+
+    @Test
+    void writesUnderAStaleFencingTokenAreRejected() {
+        String name = "lease-fence-test";
+        ManualClock clock = new ManualClock();
+        SchedulerLeaseRepository leaseRepository = new SchedulerLeaseRepository(jdbcTemplate, clock);
+        LeaseFence stale = new LeaseFence(name, leaseRepository.tryAcquire(name, "node-a", Duration.ofSeconds(100)).orElseThrow());
+        Train kept = train(93001);
+        trainBatchRepository.insertAll(List.of(kept), stale);
+
+        clock.advance(Duration.ofSeconds(101));
+        LeaseFence current = new LeaseFence(name, leaseRepository.tryAcquire(name, "node-b", Duration.ofSeconds(100)).orElseThrow());
+
+        Train rejected = train(93002);
+        assertThrows(LeaseLostException.class, () -> trainBatchRepository.insertAll(List.of(rejected), stale));
+        assertThrows(LeaseLostException.class, () -> trainBatchRepository.deleteAllById(List.of(kept.getId()), stale));
+        assertEquals(1, countTrains(kept, rejected));
+
+        assertEquals(1, trainBatchRepository.deleteAllById(List.of(kept.getId()), current));
+        assertEquals(0, countTrains(kept, rejected));
+    }
+
+    private int countTrains(Train... trains) {
+        int count = 0;
+        for (Train train : trains) {
+            count += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trains WHERE train_number = ?",
+                    Integer.class, train.getTrainNumber());
+        }
+        return count;
+    }
+
+    private static Train train(int trainNumber) {
+        return Train.builder()
+                .id(TimeOrderedUuid.next())
+                .trainNumber(trainNumber)
+                .source("Lease Source")
+                .destination("Lease Destination")
+                .departureDate(LocalDate.of(2099, 3, 1))
+                .departureTime(LocalTime.of(8, 0))
+                .arrivalTime(LocalTime.of(10, 0))
+                .totalSeats(10)
+                .build();
+    }
+
+    private long successfulRuns() {
+        Timer timer = meterRegistry.find("train.scheduler.run").tag("outcome", "success").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double skips(String reason) {
+        Counter counter = meterRegistry.find("train.scheduler.skipped").tag("reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    // Lease expiry without waiting: time only moves when the test says so
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2099-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
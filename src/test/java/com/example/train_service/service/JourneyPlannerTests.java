@@ -0,0 +1,98 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JourneyPlannerTests {
+
+    private static final LocalDate DATE = LocalDate.of(2099, 4, 1);
+
+    private JourneyPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        TimetableIndex index = mock(TimetableIndex.class);
+        when(index.version()).thenReturn(1L);
+        when(index.findByDepartureDate(any())).thenReturn(List.of());
+        when(index.findByDepartureDate(DATE)).thenReturn(List.of(
+                train(96001, "Alpha", "Bravo", "08:00", "09:00"),
+                train(96002, "Bravo", "Charlie", "09:10", "10:00"),
+                train(96003, "Bravo", "Charlie", "09:30", "10:30"),
+                train(96004, "Alpha", "Charlie", "08:00", "12:00"),
+                train(96005, "Charlie", "Delta", "11:00", "12:00"),
+                train(96006, "Xray", "Alpha", "07:00", "07:30")));
+        planner = new JourneyPlanner(index);
+    }
+
+    @Test
+    void changeOfTrainBeatsTheSlowerDirectTrain() {
+        List<Itinerary> itineraries = planner.plan(query("Alpha", "Charlie", 1, 5));
+
+        assertEquals(2, itineraries.size());
+        assertEquals(List.of(96004), trainNumbers(itineraries.get(0)));
+        assertEquals(List.of(96001, 96002), trainNumbers(itineraries.get(1)));
+        assertEquals(1, itineraries.get(1).changes());
+        assertEquals(DATE.atTime(10, 0), itineraries.get(1).arrival());
+        assertEquals(120, itineraries.get(1).durationMinutes());
+    }
+
+    @Test
+    void connectionsShorterThanTheMinimumTransferTimeAreMissed() {
+        List<Itinerary> itineraries = planner.plan(query("Alpha", "Charlie", 1, 15));
+
+        assertEquals(List.of(96001, 96003), trainNumbers(itineraries.get(1)));
+        assertEquals(DATE.atTime(10, 30), itineraries.get(1).arrival());
+    }
+
+    @Test
+    void journeysNeedingMoreChangesThanAllowedAreNotFound() {
+        assertEquals(List.of(List.of(96004)),
+                planner.plan(query("Alpha", "Charlie", 0, 5)).stream().map(this::trainNumbers).toList());
+        // the direct train to Charlie arrives after the only train to Delta leaves
+        assertTrue(planner.plan(query("Alpha", "Delta", 1, 5)).isEmpty());
+
+        List<Itinerary> itineraries = planner.plan(query("Alpha", "Delta", 2, 5));
+        assertEquals(1, itineraries.size());
+        assertEquals(2, itineraries.get(0).changes());
+        assertEquals(List.of(96001, 96002, 96005), trainNumbers(itineraries.get(0)));
+    }
+
+    @Test
+    void unreachableDestinationsGiveNoItineraries() {
+        // Xray only has departures
+        assertTrue(planner.plan(query("Alpha", "Xray", 3, 5)).isEmpty());
+        assertTrue(planner.plan(query("Alpha", "Nowhere", 3, 5)).isEmpty());
+        assertTrue(planner.plan(query("Alpha", "Alpha", 3, 5)).isEmpty());
+        // the last train to Delta has left
+        assertTrue(planner.plan(new JourneyQuery("Charlie", "Delta", DATE, LocalTime.of(11, 1), 3, 5)).isEmpty());
+    }
+
+    private JourneyQuery query(String source, String destination, int maxChanges, int minTransferMinutes) {
+        return new JourneyQuery(source, destination, DATE, LocalTime.of(6, 0), maxChanges, minTransferMinutes);
+    }
+
+    private List<Integer> trainNumbers(Itinerary itinerary) {
+        return itinerary.legs().stream().map(Train::getTrainNumber).toList();
+    }
+
+    private static Train train(int trainNumber, String source, String destination, String departure, String arrival) {
+        return Train.builder()
+                .trainNumber(trainNumber)
+                .source(source)
+                .destination(destination)
+                .departureDate(DATE)
+                .departureTime(LocalTime.parse(departure))
+                .arrivalTime(LocalTime.parse(arrival))
+                .totalSeats(100)
+                .build();
+    }
+}
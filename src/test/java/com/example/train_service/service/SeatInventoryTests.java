@@ -0,0 +1,142 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.TimeOrderedUuid;
+import com.example.train_service.model.Train;
+import com.example.train_service.repository.TrainBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SeatInventoryTests {
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private TrainBatchRepository trainBatchRepository;
+
+    @Autowired
+    private TrainService trainService;
+
+    @Test
+    void concurrentHoldsOnSeveralInstancesNeverOversell() throws Exception {
+        int seats = 20;
+        UUID trainId = insertTrain(94001, seats);
+        List<SeatInventory> instances = List.of(seatInventory,
+                beanFactory.createBean(SeatInventory.class), beanFactory.createBean(SeatInventory.class));
+
+        int attempts = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SeatHoldResult>> futures = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            SeatInventory instance = instances.get(i % instances.size());
+            futures.add(pool.submit(() -> {
+                start.await();
+                return instance.hold(trainId, 1);
+            }));
+        }
+        start.countDown();
+        int held = 0;
+        for (Future<SeatHoldResult> future : futures) {
+            if (future.get(1, TimeUnit.MINUTES).isHeld()) {
+                held++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(seats, held);
+        for (SeatInventory instance : instances) {
+            assertEquals(0, instance.availableSeats(trainId).getAsInt());
+        }
+    }
+
+    @Test
+    void releasedHoldsGiveSeatsBackAndCommittedOnesKeepThem() {
+        UUID trainId = insertTrain(94002, 10);
+
+        SeatHold booked = seatInventory.hold(trainId, 3).requireHold();
+        SeatHold released = seatInventory.hold(trainId, 4).requireHold();
+        assertEquals(SeatHoldResult.Status.NOT_ENOUGH_SEATS, seatInventory.hold(trainId, 4).status());
+
+        assertTrue(seatInventory.commit(booked.holdId()));
+        assertTrue(seatInventory.release(released.holdId()));
+        // each hold ends once
+        assertFalse(seatInventory.release(released.holdId()));
+        assertFalse(seatInventory.release(booked.holdId()));
+
+        assertEquals(7, seatInventory.availableSeats(trainId).getAsInt());
+    }
+
+    @Test
+    void capacityChangesMoveAvailabilityBySameAmount() {
+        UUID trainId = insertTrain(94003, 20);
+        seatInventory.hold(trainId, 5).requireHold();
+
+        Train train = trainService.getTrain(trainId).orElseThrow();
+        train.setTotalSeats(30);
+        trainService.updateTrain(trainId, train);
+        assertEquals(25, seatInventory.availableSeats(trainId).getAsInt());
+
+        train.setTotalSeats(3);
+        trainService.updateTrain(trainId, train);
+        assertEquals(0, seatInventory.availableSeats(trainId).getAsInt());
+    }
+
+    @Test
+    void expiredHoldsCannotBeCommittedAndTheirSeatsComeBack() {
+        UUID trainId = insertTrain(94004, 10);
+        SeatInventory shortHolds = beanFactory.createBean(SeatInventory.class);
+        ReflectionTestUtils.setField(shortHolds, "holdTtl", Duration.ZERO);
+
+        SeatHold hold = shortHolds.hold(trainId, 6).requireHold();
+        assertEquals(4, seatInventory.availableSeats(trainId).getAsInt());
+        assertFalse(seatInventory.commit(hold.holdId()));
+
+        seatInventory.expireHolds();
+        assertEquals(10, seatInventory.availableSeats(trainId).getAsInt());
+    }
+
+    @Test
+    void holdsOnUnknownTrainsAreToldApartFromFullOnes() {
+        SeatHoldResult result = seatInventory.hold(TimeOrderedUuid.next(), 1);
+
+        assertEquals(SeatHoldResult.Status.TRAIN_NOT_FOUND, result.status());
+        assertNull(result.hold());
+    }
+
+    private UUID insertTrain(int trainNumber, int seats) {
+        Train train = Train.builder()
+                .id(TimeOrderedUuid.next())
+                .trainNumber(trainNumber)
+                .source("Seat Source")
+                .destination("Seat Destination")
+                .departureDate(LocalDate.of(2099, 3, 1))
+                .departureTime(LocalTime.of(8, 0))
+                .arrivalTime(LocalTime.of(10, 0))
+                .totalSeats(seats)
+                .build();
+        trainBatchRepository.insertAll(List.of(train));
+        return train.getId();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.train_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StationDirectoryTests {
+
+    private StationDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        TimetableIndex index = mock(TimetableIndex.class);
+        when(index.isReady()).thenReturn(true);
+        when(index.version()).thenReturn(1L);
+        when(index.stationNames()).thenReturn(List.of(
+                "New Delhi", "Old Delhi", "Delhi Cantt", "Mumbai Central", "Pune", "Surat", "Kollam", "Kolar"));
+        directory = new StationDirectory(index);
+    }
+
+    @Test
+    void prefixesMatchAnyWordOfAName() {
+        // both "delhi" word terms come before the "delhi cantt" name term
+        assertEquals(List.of("New Delhi", "Old Delhi", "Delhi Cantt"), names(directory.autocomplete("delhi", 3)));
+        assertEquals(List.of("New Delhi"), names(directory.autocomplete("NEW  de", 1)));
+        assertEquals(List.of("Delhi Cantt"), names(directory.autocomplete("cantt", 1)));
+        assertEquals(List.of("Mumbai Central"), names(directory.autocomplete("central", 5)));
+    }
+
+    @Test
+    void exactNamesResolveIgnoringCaseAndSpacing() {
+        assertEquals("New Delhi", resolvedName("  new   DELHI "));
+        assertEquals("Delhi Cantt", resolvedName("delhi-cantt"));
+    }
+
+    @Test
+    void typosWithinTheEditBudgetResolve() {
+        // one edit is allowed from three characters on
+        assertEquals("Surat", resolvedName("Surst"));
+        assertEquals("Kollam", resolvedName("Kolla"));
+        // two edits only from six characters on
+        assertEquals("Mumbai Central", resolvedName("Mumbaj Centrl"));
+        assertTrue(directory.resolve("Sxrst").isEmpty());
+        assertEquals("Sxrst", directory.canonicalName("Sxrst"));
+    }
+
+    @Test
+    void typosCloseToSeveralNamesAreLeftAlone() {
+        // one edit from both Kollam and Kolar
+        assertTrue(directory.resolve("Kolam").isEmpty());
+        assertEquals("Kolam", directory.canonicalName("Kolam"));
+    }
+
+    @Test
+    void inputShorterThanThreeCharactersIsNeverCorrected() {
+        assertTrue(directory.resolve("Pu").isEmpty());
+        assertEquals(List.of("Pune"), names(directory.autocomplete("pu", 5)));
+        // "pq" is one edit from "pu", but too short to guess
+        assertTrue(directory.autocomplete("pq", 5).isEmpty());
+    }
+
+    private String resolvedName(String input) {
+        Optional<Station> station = directory.resolve(input);
+        assertTrue(station.isPresent(), input);
+        return station.get().name();
+    }
+
+    private static List<String> names(List<Station> stations) {
+        return stations.stream().map(Station::name).toList();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.train_service.service;
+
+import com.example.train_service.event.TrainDataChangedEvent;
+import com.example.train_service.event.TrainDataChangedEvent.ChangeType;
+import com.example.train_service.model.TimeOrderedUuid;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Feeds created here stand for separate instances: they share the database log but none of them
+ * receives this JVM's change events, which are handed to them directly.
+ */
+@SpringBootTest
+class TimetableChangeFeedTests {
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Test
+    void subscribersResumeOnAnotherInstanceAndSeeItsWrites() throws Exception {
+        TimetableChangeFeed writer = beanFactory.createBean(TimetableChangeFeed.class);
+        TimetableChangeFeed reader = beanFactory.createBean(TimetableChangeFeed.class);
+        long before = writer.currentVersion();
+
+        UUID first = TimeOrderedUuid.next();
+        writer.onTrainDataChanged(TrainDataChangedEvent.of(ChangeType.CREATED, first));
+        writer.publishPending();
+
+        RecordingEmitter replay = new RecordingEmitter();
+        reader.register(replay, before);
+        TimetableChange seen = replay.nextChangeWith(first);
+
+        UUID second = TimeOrderedUuid.next();
+        writer.onTrainDataChanged(TrainDataChangedEvent.of(ChangeType.UPDATED, second));
+        writer.publishPending();
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        reader.register(resumed, seen.version());
+        reader.publishPending();
+        TimetableChange next = resumed.nextChangeWith(second);
+
+        assertTrue(next.version() > seen.version());
+        assertTrue(resumed.received.stream().noneMatch(change -> change.created().contains(first)));
+        // the live subscriber follows the other instance's writes too
+        reader.publishPending();
+        replay.nextChangeWith(second);
+    }
+
+    @Test
+    void versionsBeyondTheLogGetAResync() throws Exception {
+        TimetableChangeFeed feed = beanFactory.createBean(TimetableChangeFeed.class);
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(emitter, Long.MAX_VALUE - 1);
+
+        assertNotNull(emitter.resyncs.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void largeChangesAreSplitIntoBoundedEvents() throws Exception {
+        TimetableChangeFeed feed = beanFactory.createBean(TimetableChangeFeed.class);
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(emitter, null);
+
+        List<UUID> seeded = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            seeded.add(TimeOrderedUuid.next());
+        }
+        feed.onTrainDataChanged(TrainDataChangedEvent.seeded(seeded));
+        feed.publishPending();
+
+        List<UUID> received = new ArrayList<>();
+        while (received.size() < seeded.size()) {
+            TimetableChange change = emitter.next();
+            assertTrue(change.created().size() <= 500);
+            change.created().stream().filter(seeded::contains).forEach(received::add);
+        }
+        assertEquals(seeded, received);
+    }
+
+    @Test
+    void slowSubscriberDoesNotHoldUpPublishingOrOthers() throws Exception {
+        TimetableChangeFeed feed = beanFactory.createBean(TimetableChangeFeed.class);
+        CountDownLatch unblock = new CountDownLatch(1);
+        StalledEmitter slow = new StalledEmitter(unblock);
+        RecordingEmitter fast = new RecordingEmitter();
+        feed.register(slow, null);
+        feed.register(fast, null);
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                UUID id = TimeOrderedUuid.next();
+                feed.onTrainDataChanged(TrainDataChangedEvent.of(ChangeType.CREATED, id));
+                long start = System.nanoTime();
+                feed.publishPending();
+                feed.heartbeat();
+                assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+                fast.nextChangeWith(id);
+            }
+            assertTrue(slow.sendStarted.await(5, TimeUnit.SECONDS));
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    // Records change and resync events as they are sent
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<TimetableChange> changes = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Object> resyncs = new LinkedBlockingQueue<>();
+        private final List<TimetableChange> received = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof TimetableChange change) {
+                    changes.add(change);
+                } else if (part.getData() instanceof Map<?, ?> resync) {
+                    resyncs.add(resync);
+                }
+            }
+        }
+
+        TimetableChange next() throws InterruptedException {
+            TimetableChange change = changes.poll(5, TimeUnit.SECONDS);
+            assertNotNull(change, "no change event within 5 seconds");
+            received.add(change);
+            return change;
+        }
+
+        // Skips changes made elsewhere in the test context
+        TimetableChange nextChangeWith(UUID id) throws InterruptedException {
+            while (true) {
+                TimetableChange change = next();
+                if (change.created().contains(id) || change.updated().contains(id)) {
+                    return change;
+                }
+            }
+        }
+    }
+
+    // Blocks in its first send until released, like a client that stopped reading
+    private static class StalledEmitter extends SseEmitter {
+        private final CountDownLatch unblock;
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+
+        StalledEmitter(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendStarted.countDown();
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.TimeOrderedUuid;
+import com.example.train_service.model.Train;
+import com.example.train_service.repository.DataVersionRepository;
+import com.example.train_service.repository.TrainBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rows are written the way another instance writes them: the change plus a bump of the shared
+ * trains version in one transaction, with no event published in this JVM.
+ */
+@SpringBootTest
+class TimetableIndexRefreshTests {
+
+    private static final int TRAIN_NUMBER = 92001;
+
+    @Autowired
+    private TimetableIndex timetableIndex;
+
+    @Autowired
+    private TrainBatchRepository trainBatchRepository;
+
+    @Autowired
+    private DataVersionRepository dataVersionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TrainService trainService;
+
+    @Test
+    void picksUpRowsChangedByAnotherInstance() {
+        Train train = train(TRAIN_NUMBER);
+        long indexVersion = timetableIndex.version();
+
+        writeElsewhere(() -> trainBatchRepository.insertAll(List.of(train)));
+        timetableIndex.refreshIfChanged();
+
+        assertEquals(List.of(train.getId()), timetableIndex.findByTrainNumber(TRAIN_NUMBER).stream().map(Train::getId).toList());
+        assertTrue(timetableIndex.version() > indexVersion);
+
+        writeElsewhere(() -> trainBatchRepository.deleteAllById(List.of(train.getId())));
+        timetableIndex.refreshIfChanged();
+
+        assertTrue(timetableIndex.findByTrainNumber(TRAIN_NUMBER).isEmpty());
+    }
+
+    @Test
+    void dropsCachedTrainsChangedByAnotherInstance() {
+        Train train = train(TRAIN_NUMBER + 1);
+        writeElsewhere(() -> trainBatchRepository.insertAll(List.of(train)));
+        timetableIndex.refreshIfChanged();
+        assertEquals(10, trainService.getTrain(train.getId()).orElseThrow().getTotalSeats());
+
+        writeElsewhere(() -> trainBatchRepository.updateCapacity(train.getId(), 20));
+        timetableIndex.refreshIfChanged();
+
+        assertEquals(20, trainService.getTrain(train.getId()).orElseThrow().getTotalSeats());
+    }
+
+    private void writeElsewhere(Runnable write) {
+        transactionTemplate.executeWithoutResult(status -> {
+            write.run();
+            dataVersionRepository.increment(DataVersionRepository.TRAINS);
+        });
+    }
+
+    private static Train train(int trainNumber) {
+        return Train.builder()
+                .id(TimeOrderedUuid.next())
+                .trainNumber(trainNumber)
+                .source("Refresh Source")
+                .destination("Refresh Destination")
+                .departureDate(LocalDate.of(2099, 2, 1))
+                .departureTime(LocalTime.of(8, 0))
+                .arrivalTime(LocalTime.of(10, 0))
+                .totalSeats(10)
+                .build();
+    }
+}
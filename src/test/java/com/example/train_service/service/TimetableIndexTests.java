@@ -0,0 +1,73 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+import com.example.train_service.repository.DataVersionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TimetableIndexTests {
+
+    private static final int TRAIN_NUMBER = 92101;
+
+    private static final LocalDate DATE = LocalDate.of(2099, 2, 2);
+
+    @Autowired
+    private TimetableIndex timetableIndex;
+
+    @Autowired
+    private TrainService trainService;
+
+    @Autowired
+    private DataVersionRepository dataVersionRepository;
+
+    @Test
+    void writesByThisInstanceAreAppliedToTheSnapshotInPlace() {
+        Train created = trainService.createTrain(train("Delta Source", "Delta Destination"));
+
+        assertEquals(List.of(created.getId()), ids(timetableIndex.findByRoute("delta source", "DELTA DESTINATION", DATE)));
+        assertTrue(timetableIndex.stationNames().contains("Delta Source"));
+        // the snapshot knows it already holds this write, so the scheduled refresh has nothing to rebuild
+        assertEquals(dataVersionRepository.current(DataVersionRepository.TRAINS), timetableIndex.dataVersion());
+
+        long version = timetableIndex.version();
+        trainService.updateTrain(created.getId(), train("Delta Source", "Moved Destination"));
+
+        assertTrue(timetableIndex.version() > version);
+        assertTrue(timetableIndex.findByRoute("Delta Source", "Delta Destination", DATE).isEmpty());
+        assertEquals(List.of(created.getId()), ids(timetableIndex.findByRoute("Delta Source", "Moved Destination", DATE)));
+        assertEquals(List.of(created.getId()), ids(timetableIndex.findByTrainNumber(TRAIN_NUMBER)));
+        assertFalse(timetableIndex.stationNames().contains("Delta Destination"));
+
+        trainService.deleteTrain(created.getId());
+
+        assertTrue(timetableIndex.findByTrainNumber(TRAIN_NUMBER).isEmpty());
+        assertTrue(timetableIndex.findByDepartureDate(DATE).stream().noneMatch(t -> t.getId().equals(created.getId())));
+        assertFalse(timetableIndex.stationNames().contains("Delta Source"));
+        assertEquals(dataVersionRepository.current(DataVersionRepository.TRAINS), timetableIndex.dataVersion());
+    }
+
+    private static List<UUID> ids(List<Train> trains) {
+        return trains.stream().map(Train::getId).toList();
+    }
+
+    private static Train train(String source, String destination) {
+        return Train.builder()
+                .trainNumber(TRAIN_NUMBER)
+                .source(source)
+                .destination(destination)
+                .departureDate(DATE)
+                .departureTime(LocalTime.of(8, 0))
+                .arrivalTime(LocalTime.of(10, 0))
+                .totalSeats(10)
+                .build();
+    }
+}
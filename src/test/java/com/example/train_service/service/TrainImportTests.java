@@ -0,0 +1,112 @@
+package com.example.train_service.service;
+
+import com.example.train_service.model.Train;
+import com.example.train_service.repository.TrainRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TrainImportTests {
+
+    private static final String HEADER = String.join(",", TimetableFormat.CSV_COLUMNS) + "\n";
+
+    @Autowired
+    private TrainService trainService;
+
+    @Autowired
+    private TrainRepository trainRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void badRowsAreReportedByLineAndTheRestAreImported() {
+        ImportReport report = importCsv(HEADER
+                + "97001,\"Alpha, Central\",Bravo,2099-05-01,08:00,10:00,100\n"
+                + "97002,Alpha,Bravo,2099-05-01,08:00,10:00\n"
+                + "97003,\"Alpha,Bravo,2099-05-01,08:00,10:00,100\n"
+                + "97004,Alpha,Bravo,2099-05-01,08:00,10:00,0\n"
+                + "97005,Alpha,Alpha,2099-05-01,08:00,10:00,100\n"
+                + "97006,\"Say \"\"Hi\"\"\",Bravo,2099-05-01,08:00,10:00,100\n");
+
+        assertEquals(6, report.rowsRead());
+        assertEquals(2, report.rowsUpserted());
+        assertEquals(4, report.rowsRejected());
+        assertEquals(List.of(3L, 4L, 5L, 6L), report.errors().stream().map(ImportReport.RowError::line).toList());
+        assertEquals("Alpha, Central", onlyTrain(97001).getSource());
+        assertEquals("Say \"Hi\"", onlyTrain(97006).getSource());
+    }
+
+    @Test
+    void csvRowsRoundTripFieldsWithCommasAndQuotes() {
+        Train train = Train.builder()
+                .trainNumber(97010)
+                .source("Alpha, \"Old\" Town")
+                .destination("Bravo")
+                .departureDate(LocalDate.of(2099, 5, 2))
+                .departureTime(LocalTime.of(8, 0))
+                .arrivalTime(LocalTime.of(10, 0))
+                .totalSeats(100)
+                .build();
+
+        String line = TimetableFormat.CSV.format(train, objectMapper);
+        Train parsed = TimetableFormat.CSV.parse(line, objectMapper);
+
+        assertEquals("97010,\"Alpha, \"\"Old\"\" Town\",Bravo,2099-05-02,08:00,10:00,100", line);
+        assertEquals(train.getSource(), parsed.getSource());
+        assertEquals(train.getTotalSeats(), parsed.getTotalSeats());
+    }
+
+    @Test
+    void repeatedRowsKeepTheLastOccurrence() {
+        ImportReport report = importCsv(HEADER
+                + "97020,Alpha,Bravo,2099-05-03,08:00,10:00,100\n"
+                + "97020,Alpha,Bravo,2099-05-03,09:00,11:00,120\n");
+
+        assertEquals(0, report.rowsRejected());
+        Train train = onlyTrain(97020);
+        assertEquals(LocalTime.of(9, 0), train.getDepartureTime());
+        assertEquals(120, train.getTotalSeats());
+    }
+
+    @Test
+    void reimportUpdatesTrainsInPlaceAndKeepsTakenSeats() {
+        importCsv(HEADER + "97030,Alpha,Bravo,2099-05-04,08:00,10:00,20\n");
+        Train original = onlyTrain(97030);
+        seatInventory.hold(original.getId(), 5).requireHold();
+
+        ImportReport report = importCsv(HEADER + "97030,Alpha,Charlie,2099-05-04,08:00,10:30,30\n");
+        assertEquals(1, report.rowsUpserted());
+        Train updated = onlyTrain(97030);
+        assertEquals(original.getId(), updated.getId());
+        assertEquals("Charlie", updated.getDestination());
+        assertEquals(LocalTime.of(10, 30), updated.getArrivalTime());
+        assertEquals(30, updated.getTotalSeats());
+        assertEquals(25, seatInventory.availableSeats(original.getId()).getAsInt());
+
+        importCsv(HEADER + "97030,Alpha,Charlie,2099-05-04,08:00,10:30,3\n");
+        assertEquals(0, seatInventory.availableSeats(original.getId()).getAsInt());
+    }
+
+    private ImportReport importCsv(String csv) {
+        return trainService.importTrains(new StringReader(csv), TimetableFormat.CSV);
+    }
+
+    private Train onlyTrain(int trainNumber) {
+        List<Train> trains = trainRepository.findByTrainNumber(trainNumber);
+        assertEquals(1, trains.size());
+        return trains.get(0);
+    }
+}